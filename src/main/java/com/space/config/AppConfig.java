@@ -1,23 +1,55 @@
 package com.space.config;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.space.model.ShipIdGenerator;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.Properties;
+import java.util.zip.Deflater;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
 
@@ -25,10 +57,35 @@ import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.
 @EnableTransactionManagement
 @ComponentScan("com.space.service")
 @EnableJpaRepositories(basePackages = "com.space.repository")
+@PropertySource(value = "classpath:cosmoport.properties", encoding = "UTF-8")
 public class AppConfig {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AppConfig.class);
+
+    private static final String SHIP_REGION = "com.space.model.Ship";
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${ship.jdbc.batch-size:50}")
+    private int jdbcBatchSize;
+    @Value("${ship.id.allocation-size:50}")
+    private int idAllocationSize;
+    @Value("${ship.hibernate.cache.enabled:false}")
+    private boolean hibernateCacheEnabled;
+    @Value("${ship.hibernate.cache.size:10000}")
+    private long hibernateCacheSize;
+    @Value("${ship.hibernate.cache.query.size:1000}")
+    private long hibernateQueryCacheSize;
+    @Value("${ship.hibernate.cache.ttl:600}")
+    private long hibernateCacheTtlSeconds;
+
+    /**
+     * Схема БД ведется миграциями из db/migration. EntityManagerFactory создается после их применения
+     */
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(ObjectProvider<Flyway> flyway) {
+        flyway.getIfAvailable(); //миграции применяются при создании бина flyway
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
         em.setPackagesToScan("com.space.model");
@@ -36,19 +93,92 @@ public class AppConfig {
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(additionalProperties());
+        if (hibernateCacheEnabled) {
+            //Hibernate закрывает переданный CacheManager вместе с EntityManagerFactory
+            em.getJpaPropertyMap().put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager());
+        }
 
         return em;
     }
 
+    /**
+     * Пул соединений с MySQL. Параметры пула и кэша подготовленных запросов драйвера - в cosmoport.properties.
+     * Если задан ship.datasource.replica.url, транзакции только для чтения идут в отдельный пул реплики
+     */
     @Profile("prod")
-    @Bean
+    @Bean(destroyMethod = "close")
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        HikariConfig primary = connectionPoolConfig("cosmoport", "ship.datasource");
+        primary.setMetricsTrackerFactory(connectionPoolMetrics());
+
+        String replicaUrl = environment.getProperty("ship.datasource.replica.url", "");
+        if (replicaUrl.isEmpty()) {
+            return new HikariDataSource(primary);
+        }
+        HikariConfig replica = connectionPoolConfig("cosmoport-replica", "ship.datasource.replica");
+        replica.setReadOnly(true);
+        replica.setMetricsTrackerFactory(connectionPoolMetrics());
+        return new ReadWriteRoutingDataSource(new HikariDataSource(primary), new HikariDataSource(replica));
+    }
+
+    /**
+     * Настройки пула соединений с адресом и учетной записью из свойств prefix.url, prefix.username и
+     * prefix.password. Учетная запись по умолчанию - как у основной БД, параметры пула общие
+     */
+    private HikariConfig connectionPoolConfig(String name, String prefix) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(environment.getProperty(prefix + ".url",
+                "jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC"));
+        config.setUsername(environment.getProperty(prefix + ".username",
+                environment.getProperty("ship.datasource.username", "root")));
+        config.setPassword(environment.getProperty(prefix + ".password",
+                environment.getProperty("ship.datasource.password", "root")));
+
+        config.setMinimumIdle(environment.getProperty("ship.datasource.pool.min-idle", Integer.class, 2));
+        config.setMaximumPoolSize(environment.getProperty("ship.datasource.pool.max-size", Integer.class, 10));
+        config.setConnectionTimeout(environment.getProperty("ship.datasource.pool.connection-timeout-ms",
+                Long.class, 30000L));
+        config.setValidationTimeout(environment.getProperty("ship.datasource.pool.validation-timeout-ms",
+                Long.class, 5000L));
+        config.setMaxLifetime(environment.getProperty("ship.datasource.pool.max-lifetime-ms",
+                Long.class, 1800000L));
+        config.setLeakDetectionThreshold(environment.getProperty("ship.datasource.pool.leak-detection-ms",
+                Long.class, 0L));
+
+        //Кэш подготовленных запросов на стороне драйвера MySQL
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize",
+                environment.getProperty("ship.datasource.prep-stmt-cache-size", "250"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit",
+                environment.getProperty("ship.datasource.prep-stmt-cache-sql-limit", "2048"));
+        //fetch size выгрузки кораблей работает только с курсором на стороне сервера
+        config.addDataSourceProperty("useCursorFetch", "true");
+        //Драйвер объединяет пакет INSERT в один многострочный INSERT
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+
+        return config;
+    }
+
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    /**
+     * Применяет новые миграции при старте. БД, созданная до миграций скриптом init.sql, считается версией 1
+     */
+    @Profile("prod")
+    @Bean(initMethod = "migrate")
+    public Flyway flyway() {
+        return Flyway.configure()
+                .dataSource(dataSource())
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
     }
 
     @Profile("dev")
@@ -64,6 +194,88 @@ public class AppConfig {
                 .build();
     }
 
+    /**
+     * Потоки для запросов чтения асинхронного API. Очередь ограничена: когда она заполнена,
+     * новый запрос отклоняется, а не ждет
+     */
+    @Bean
+    public AsyncTaskExecutor shipReadExecutor() {
+        if (useVirtualThreads()) {
+            return new VirtualThreadTaskExecutor("ship-read-", virtualThreadMaxTasks());
+        }
+        return boundedExecutor("ship-read-", "ship.async.read", 8, 100);
+    }
+
+    /**
+     * Потоки для запросов изменения асинхронного API, отдельно от чтения, чтобы долгий поиск
+     * не задерживал изменения. Начатые изменения завершаются при остановке приложения
+     */
+    @Bean
+    public AsyncTaskExecutor shipWriteExecutor() {
+        if (useVirtualThreads()) {
+            return new VirtualThreadTaskExecutor("ship-write-", virtualThreadMaxTasks());
+        }
+        ThreadPoolTaskExecutor executor = boundedExecutor("ship-write-", "ship.async.write", 4, 50);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * JSON кораблей: сериализуются поля, а не геттеры. Объявлен в корневом контексте, чтобы его
+     * видели и сервисы (импорт кораблей), и конвертер сообщений WebConfig
+     */
+    @Bean
+    public ObjectMapper objectMapper() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        return mapper;
+    }
+
+    /**
+     * Сжатие JSON-ответов gzip. Фильтр регистрируется в MyWebAppInit через DelegatingFilterProxy
+     */
+    @Bean
+    public GzipResponseFilter gzipResponseFilter() {
+        String mimeTypes = environment.getProperty("ship.gzip.mime-types", "application/json");
+        return new GzipResponseFilter(environment.getProperty("ship.gzip.enabled", Boolean.class, true),
+                environment.getProperty("ship.gzip.min-size", Integer.class, 1024),
+                environment.getProperty("ship.gzip.level", Integer.class, Deflater.DEFAULT_COMPRESSION),
+                environment.getProperty("ship.gzip.pool-size", Integer.class, 32),
+                Arrays.asList(mimeTypes.toLowerCase(Locale.ROOT).split("\\s*,\\s*")));
+    }
+
+    /**
+     * Виртуальные потоки включаются свойством ship.async.virtual-threads и только на JDK 21+
+     */
+    private boolean useVirtualThreads() {
+        if (!environment.getProperty("ship.async.virtual-threads", Boolean.class, false)) {
+            return false;
+        }
+        if (!VirtualThreadTaskExecutor.isSupported()) {
+            LOG.warn("ship.async.virtual-threads is set, but Java {} has no virtual threads; using thread pools",
+                    System.getProperty("java.version"));
+            return false;
+        }
+        return true;
+    }
+
+    private int virtualThreadMaxTasks() {
+        return environment.getProperty("ship.async.virtual.max-tasks", Integer.class, 10000);
+    }
+
+    private ThreadPoolTaskExecutor boundedExecutor(String threadNamePrefix, String prefix,
+                                                   int defaultThreads, int defaultQueue) {
+        int threads = environment.getProperty(prefix + ".threads", Integer.class, defaultThreads);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(environment.getProperty(prefix + ".queue", Integer.class, defaultQueue));
+        return executor;
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
@@ -72,6 +284,14 @@ public class AppConfig {
         return transactionManager;
     }
 
+    /**
+     * Подставляет значения из cosmoport.properties в @Value, в том числе в поля этой конфигурации
+     */
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
     @Bean
     public PersistenceExceptionTranslationPostProcessor exceptionTranslation() {
         return new PersistenceExceptionTranslationPostProcessor();
@@ -80,7 +300,45 @@ public class AppConfig {
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        //Пакетные INSERT и UPDATE; для INSERT нужен генератор id, не требующий вставки по одной строке
+        properties.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(jdbcBatchSize));
+        properties.setProperty(AvailableSettings.ORDER_INSERTS, "true");
+        properties.setProperty(AvailableSettings.ORDER_UPDATES, "true");
+        properties.setProperty(ShipIdGenerator.ALLOCATION_SIZE_SETTING, String.valueOf(idAllocationSize));
+        properties.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, String.valueOf(hibernateCacheEnabled));
+        properties.setProperty(AvailableSettings.USE_QUERY_CACHE, String.valueOf(hibernateCacheEnabled));
+        if (hibernateCacheEnabled) {
+            properties.setProperty(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.setProperty(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        }
 
         return properties;
     }
+
+    /**
+     * Локальный ограниченный по размеру кэш Ehcache для второго уровня Hibernate:
+     * корабли по id и результаты запросов живут не дольше ship.hibernate.cache.ttl секунд.
+     * Метки времени изменения таблиц не вытесняются, иначе кэш запросов может вернуть устаревший результат
+     */
+    private CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        Duration ttl = Duration.ofSeconds(hibernateCacheTtlSeconds);
+
+        cacheManager.createCache(SHIP_REGION, Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                        ResourcePoolsBuilder.heap(hibernateCacheSize))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl))));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                Eh107Configuration.fromEhcacheCacheConfiguration(
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                ResourcePoolsBuilder.heap(hibernateQueryCacheSize))
+                                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl))));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                Eh107Configuration.fromEhcacheCacheConfiguration(
+                        CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                ResourcePoolsBuilder.heap(Integer.MAX_VALUE))
+                                .withExpiry(ExpiryPolicyBuilder.noExpiration())));
+        return cacheManager;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.space.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Показатели пулов соединений HikariCP: занятые, свободные и ожидающие соединения,
+ * время ожидания соединения и количество таймаутов.
+ * Одна фабрика подключается ко всем пулам (основной БД и реплики), показатели ведутся по имени пула.
+ * Пул подключает эти счетчики при старте; до этого (и в профиле dev без пула) показатели пустые.
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+    private final Map<String, PoolTracker> pools = new ConcurrentSkipListMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolTracker tracker = new PoolTracker(poolStats);
+        pools.put(poolName, tracker);
+        return tracker;
+    }
+
+    /**
+     * enabled - подключен ли хотя бы один пул, pools - показатели каждого пула по его имени
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", !pools.isEmpty());
+        if (pools.isEmpty()) {
+            return metrics;
+        }
+        Map<String, Object> byPool = new LinkedHashMap<>();
+        for (Map.Entry<String, PoolTracker> pool : pools.entrySet()) {
+            byPool.put(pool.getKey(), pool.getValue().getMetrics());
+        }
+        metrics.put("pools", byPool);
+        return metrics;
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class PoolTracker implements IMetricsTracker {
+
+        private final PoolStats stats;
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+        private final AtomicLong maxAcquireNanos = new AtomicLong();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder created = new LongAdder();
+        private final LongAdder usageMillis = new LongAdder();
+
+        PoolTracker(PoolStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            created.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquired.increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.add(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        Map<String, Object> getMetrics() {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            long acquiredCount = acquired.sum();
+            metrics.put("active", stats.getActiveConnections());
+            metrics.put("idle", stats.getIdleConnections());
+            metrics.put("total", stats.getTotalConnections());
+            metrics.put("pendingThreads", stats.getPendingThreads());
+            metrics.put("min", stats.getMinConnections());
+            metrics.put("max", stats.getMaxConnections());
+            metrics.put("connectionsCreated", created.sum());
+            metrics.put("acquired", acquiredCount);
+            metrics.put("acquireTimeouts", timeouts.sum());
+            metrics.put("avgWaitMillis", acquiredCount == 0 ? 0. : toMillis(acquireNanos.sum()) / acquiredCount);
+            metrics.put("maxWaitMillis", toMillis(maxAcquireNanos.get()));
+            metrics.put("avgUsageMillis", acquiredCount == 0 ? 0. : (double) usageMillis.sum() / acquiredCount);
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package com.space.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Сжатие ответов gzip. Сжимается ответ с кодом 200 и типом из mimeTypes, если клиент принимает gzip,
+ * а тело длиннее minSize байт: первые minSize байт копятся в буфере, и только потом решается, сжимать ли ответ.
+ * Deflater и буферы берутся из пула и возвращаются в него после ответа, поэтому сжатие не создает
+ * новых объектов на каждый запрос. ETag сжатого ответа становится слабым (W/), как у других серверов,
+ * меняющих кодировку тела; сравнение If-None-Match в ShipController от этого не меняется.
+ * Асинхронные ответы (DeferredResult, SSE) пишутся после выхода из фильтра и не сжимаются.
+ * Явный flush до решения о сжатии (например, первое событие SSE) отправляет накопленное как есть.
+ */
+public class GzipResponseFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+    //Заголовок gzip (RFC 1952): сжатие deflate, без имени файла и времени, ОС неизвестна
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+    private final List<String> mimeTypes;
+    private final BlockingQueue<Compressor> pool;
+
+    public GzipResponseFilter(boolean enabled, int minSize, int level, int poolSize, List<String> mimeTypes) {
+        this.enabled = enabled;
+        this.minSize = Math.max(0, minSize);
+        this.level = level;
+        this.mimeTypes = mimeTypes;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+        //Ответ зависит от Accept-Encoding, кэши должны хранить варианты отдельно
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        GzipResponse gzipResponse = new GzipResponse(response);
+        try {
+            chain.doFilter(request, gzipResponse);
+            if (request.isAsyncStarted()) {
+                gzipResponse.passThrough();
+            } else {
+                gzipResponse.finish();
+            }
+        } finally {
+            gzipResponse.release();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Compressor compressor;
+        while ((compressor = pool.poll()) != null) {
+            compressor.deflater.end();
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String coding : headers.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim();
+                if (!name.equalsIgnoreCase(GZIP) && !name.equals("*")) {
+                    continue;
+                }
+                boolean refused = false;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim().replace(" ", "");
+                    if (parameter.matches("q=0(\\.0*)?")) {
+                        refused = true;
+                    }
+                }
+                if (!refused) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Compressor acquire() {
+        Compressor compressor = pool.poll();
+        return compressor != null ? compressor : new Compressor(level, minSize);
+    }
+
+    private void release(Compressor compressor) {
+        compressor.reset();
+        if (!pool.offer(compressor)) {
+            compressor.deflater.end();
+        }
+    }
+
+    /**
+     * Deflater с буферами: input - для первых minSize байт тела, output - для сжатых данных
+     */
+    private static final class Compressor {
+
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] input;
+        private final byte[] output = new byte[8192];
+        private long size; //Длина несжатых данных, для заголовка ISIZE в конце gzip
+
+        Compressor(int level, int inputSize) {
+            //Без заголовка zlib: заголовок и окончание gzip пишутся отдельно
+            this.deflater = new Deflater(level, true);
+            this.input = new byte[inputSize];
+        }
+
+        void write(byte[] bytes, int offset, int length, OutputStream out) throws IOException {
+            crc.update(bytes, offset, length);
+            size += length;
+            deflater.setInput(bytes, offset, length);
+            while (!deflater.needsInput()) {
+                int count = deflater.deflate(output, 0, output.length, Deflater.NO_FLUSH);
+                if (count > 0) {
+                    out.write(output, 0, count);
+                }
+            }
+        }
+
+        /**
+         * Отправляет все сжатые данные, переданные в write: поток gzip остается открытым
+         */
+        void flush(OutputStream out) throws IOException {
+            int count;
+            do {
+                count = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+                out.write(output, 0, count);
+            } while (count == output.length);
+        }
+
+        void finish(OutputStream out) throws IOException {
+            deflater.finish();
+            while (!deflater.finished()) {
+                int count = deflater.deflate(output, 0, output.length, Deflater.NO_FLUSH);
+                if (count > 0) {
+                    out.write(output, 0, count);
+                }
+            }
+            //CRC32 и длина несжатых данных, little-endian
+            writeInt((int) crc.getValue(), 0);
+            writeInt((int) size, 4);
+            out.write(output, 0, 8);
+        }
+
+        private void writeInt(int value, int offset) {
+            output[offset] = (byte) value;
+            output[offset + 1] = (byte) (value >>> 8);
+            output[offset + 2] = (byte) (value >>> 16);
+            output[offset + 3] = (byte) (value >>> 24);
+        }
+
+        void reset() {
+            deflater.reset();
+            crc.reset();
+            size = 0;
+        }
+    }
+
+    private enum State {
+        BUFFERING, COMPRESSING, PASS_THROUGH
+    }
+
+    /**
+     * Ответ, тело которого сначала копится в буфере, а затем пишется сжатым или как есть
+     */
+    private final class GzipResponse extends HttpServletResponseWrapper {
+
+        private State state = State.BUFFERING;
+        private Compressor compressor; //null, пока ничего не записано, и после release
+        private int buffered;
+        private long contentLength = -1; //Длина тела, объявленная до решения о сжатии
+        private final byte[] single = new byte[1];
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        GzipResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        single[0] = (byte) b;
+                        GzipResponse.this.write(single, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] bytes, int offset, int length) throws IOException {
+                        GzipResponse.this.write(bytes, offset, length);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        GzipResponse.this.flush();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        try {
+                            return state != State.PASS_THROUGH || getResponse().getOutputStream().isReady();
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    }
+
+                    /**
+                     * Неблокирующая запись идет в ответ контейнера напрямую, без сжатия
+                     */
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        try {
+                            passThrough();
+                            getResponse().getOutputStream().setWriteListener(writeListener);
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            //Код ответа и тип известны к началу записи тела: несжимаемый ответ не копится в буфере
+            if (state == State.BUFFERING && !isCompressible()) {
+                passThrough();
+            }
+            if (state == State.BUFFERING) {
+                if (buffered + length <= minSize) {
+                    if (compressor == null) {
+                        compressor = acquire();
+                    }
+                    System.arraycopy(bytes, offset, compressor.input, buffered, length);
+                    buffered += length;
+                    return;
+                }
+                startCompressing();
+            }
+            if (state == State.COMPRESSING) {
+                compressor.write(bytes, offset, length, getResponse().getOutputStream());
+            } else {
+                getResponse().getOutputStream().write(bytes, offset, length);
+            }
+        }
+
+        private boolean isCompressible() {
+            String contentType = getContentType();
+            if (getStatus() != HttpStatus.OK.value() || contentType == null
+                    || getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+                return false;
+            }
+            String type = contentType.toLowerCase(Locale.ROOT);
+            for (String mimeType : mimeTypes) {
+                if (type.startsWith(mimeType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void startCompressing() throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            String etag = response.getHeader(HttpHeaders.ETAG);
+            if (etag != null && !etag.startsWith("W/")) {
+                response.setHeader(HttpHeaders.ETAG, "W/" + etag);
+            }
+            if (compressor == null) {
+                compressor = acquire();
+            }
+            state = State.COMPRESSING;
+
+            OutputStream out = response.getOutputStream();
+            out.write(GZIP_HEADER);
+            compressor.write(compressor.input, 0, buffered, out);
+            buffered = 0;
+        }
+
+        /**
+         * Дальше тело пишется как есть, без сжатия. Накопленная часть отправляется сразу
+         */
+        void passThrough() throws IOException {
+            if (state != State.BUFFERING) {
+                return;
+            }
+            state = State.PASS_THROUGH;
+            if (contentLength >= 0) {
+                getResponse().setContentLengthLong(contentLength);
+            }
+            if (buffered > 0) {
+                getResponse().getOutputStream().write(compressor.input, 0, buffered);
+                buffered = 0;
+            }
+            release();
+        }
+
+        /**
+         * Дописывает тело после обработки запроса: короткое - как есть, сжатое - окончанием gzip
+         */
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (state == State.BUFFERING) {
+                passThrough();
+            } else if (state == State.COMPRESSING) {
+                compressor.finish(getResponse().getOutputStream());
+                state = State.PASS_THROUGH;
+                release();
+            }
+        }
+
+        void release() {
+            if (compressor != null) {
+                GzipResponseFilter.this.release(compressor);
+                compressor = null;
+            }
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (state == State.BUFFERING) {
+                contentLength = length;
+            } else if (state == State.PASS_THROUGH) {
+                super.setContentLengthLong(length);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        /**
+         * Явный flush до решения о сжатии означает, что клиент ждет уже записанное: оно уходит без сжатия.
+         * Сжатые данные отправляются с SYNC_FLUSH
+         */
+        private void flush() throws IOException {
+            if (state == State.BUFFERING) {
+                passThrough();
+            }
+            if (state == State.COMPRESSING) {
+                compressor.flush(getResponse().getOutputStream());
+            }
+            getResponse().getOutputStream().flush();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            flush();
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (state == State.BUFFERING) {
+                buffered = 0;
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            if (state == State.BUFFERING) {
+                buffered = 0;
+                contentLength = -1;
+            }
+            super.reset();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            discard();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            discard();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            discard();
+            super.sendRedirect(location);
+        }
+
+        /**
+         * Тело заменяет контейнер: накопленное отбрасывается, сжатие не начинается
+         */
+        private void discard() {
+            if (state == State.BUFFERING) {
+                buffered = 0;
+                state = State.PASS_THROUGH;
+                release();
+            }
+        }
+    }
+}
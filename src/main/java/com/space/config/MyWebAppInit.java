@@ -1,7 +1,9 @@
 package com.space.config;
 
+import org.springframework.web.filter.DelegatingFilterProxy;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 
@@ -28,4 +30,10 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
         return new String[]{"/"};
     }
 
+    @Override
+    protected Filter[] getServletFilters() {
+        //Бин gzipResponseFilter из AppConfig, чтобы фильтр брал настройки из cosmoport.properties
+        return new Filter[]{new DelegatingFilterProxy("gzipResponseFilter")};
+    }
+
 }
\ No newline at end of file
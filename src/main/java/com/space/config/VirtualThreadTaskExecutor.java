@@ -0,0 +1,118 @@
+package com.space.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выполняет каждую задачу в отдельном виртуальном потоке (JDK 21+). Потоков не меньше, чем задач,
+ * поэтому число одновременных запросов к БД ограничивает пул соединений, а не пул потоков.
+ * Одновременно выполняется не больше maxTasks задач, следующие отклоняются.
+ * Проект собирается под Java 8, поэтому виртуальные потоки создаются через reflection.
+ */
+public class VirtualThreadTaskExecutor implements AsyncTaskExecutor, DisposableBean {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxTasks;
+
+    public VirtualThreadTaskExecutor(String threadNamePrefix, int maxTasks) {
+        this.executor = newVirtualThreadPerTaskExecutor(threadNamePrefix);
+        this.permits = new Semaphore(maxTasks);
+        this.maxTasks = maxTasks;
+    }
+
+    /**
+     * Поддерживает ли JVM виртуальные потоки
+     */
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submit(task);
+    }
+
+    @Override
+    public void execute(Runnable task, long startTimeout) {
+        submit(task);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        FutureTask<Object> future = new FutureTask<>(task, null);
+        start(future);
+        return future;
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        start(future);
+        return future;
+    }
+
+    private void start(FutureTask<?> future) {
+        if (!permits.tryAcquire()) {
+            throw new TaskRejectedException("Уже выполняется " + maxTasks + " задач");
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw new TaskRejectedException("Исполнитель остановлен", e);
+        }
+    }
+
+    /**
+     * Количество выполняемых задач
+     */
+    public int getActiveCount() {
+        return maxTasks - permits.availablePermits();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor(String threadNamePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Виртуальные потоки не поддерживаются в Java "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+import com.space.service.ShipQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Те же запросы, что и в {@link ShipController}, по адресам /rest/async/ships/...,
+ * но выполняемые не в потоке сервлет-контейнера, а в ограниченных пулах: отдельном для чтения
+ * и отдельном для изменений. Поток контейнера освобождается сразу после постановки запроса в очередь.
+ * Если очередь пула заполнена или ответ не готов за timeout миллисекунд,
+ * необходимо ответить ошибкой с кодом 503.
+ */
+@RestController
+public class AsyncShipController {
+
+    private ShipController shipController;
+    private AsyncTaskExecutor readExecutor;
+    private AsyncTaskExecutor writeExecutor;
+    private long defaultTimeout;
+    private long maxTimeout;
+
+    public AsyncShipController() {
+    }
+
+    @Autowired
+    public AsyncShipController(ShipController shipController,
+                               @Qualifier("shipReadExecutor") AsyncTaskExecutor readExecutor,
+                               @Qualifier("shipWriteExecutor") AsyncTaskExecutor writeExecutor,
+                               @Value("${ship.async.timeout-ms:10000}") long defaultTimeout,
+                               @Value("${ship.async.max-timeout-ms:60000}") long maxTimeout) {
+        this.shipController = shipController;
+        this.readExecutor = readExecutor;
+        this.writeExecutor = writeExecutor;
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    @RequestMapping(path = "/rest/async/ships", method = RequestMethod.GET)
+    public DeferredResult<ResponseEntity<List<Ship>>> getAllShips(
+            ShipQuery query,
+            @RequestParam(value = "order", required = false) ShipOrder order,
+            @RequestParam(value = "pageNumber", required = false) Integer pageNumber,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "timeout", required = false) Long timeout
+    ) {
+        return execute(readExecutor, timeout,
+                () -> shipController.getAllShips(query, order, pageNumber, pageSize, cursor));
+    }
+
+    @RequestMapping(path = "/rest/async/ships/search", method = RequestMethod.GET)
+    public DeferredResult<ResponseEntity<ShipPage>> searchShips(
+            ShipQuery query,
+            @RequestParam(value = "order", required = false) ShipOrder order,
+            @RequestParam(value = "pageNumber", required = false) Integer pageNumber,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize,
+            @RequestParam(value = "timeout", required = false) Long timeout
+    ) {
+        return execute(readExecutor, timeout, () -> new ResponseEntity<>(
+                shipController.searchShips(query, order, pageNumber, pageSize), HttpStatus.OK));
+    }
+
+    @RequestMapping(path = "/rest/async/ships/count", method = RequestMethod.GET)
+    public DeferredResult<ResponseEntity<Long>> getShipsCount(
+            ShipQuery query,
+            @RequestParam(value = "timeout", required = false) Long timeout) {
+        return execute(readExecutor, timeout,
+                () -> new ResponseEntity<>(shipController.getShipsCount(query), HttpStatus.OK));
+    }
+
+    @RequestMapping(path = "/rest/async/ships/{id}", method = RequestMethod.GET)
+    public DeferredResult<ResponseEntity<Ship>> getShip(
+            @PathVariable(value = "id") Long id,
+            @RequestParam(value = "timeout", required = false) Long timeout) {
+        return execute(readExecutor, timeout, () -> shipController.getShip(id));
+    }
+
+    @RequestMapping(path = "/rest/async/ships", method = RequestMethod.POST)
+    public DeferredResult<ResponseEntity<Ship>> createShip(
+            @RequestBody Ship ship,
+            @RequestParam(value = "timeout", required = false) Long timeout) {
+        return execute(writeExecutor, timeout, () -> shipController.createShip(ship));
+    }
+
+    @RequestMapping(path = "/rest/async/ships/{id}", method = RequestMethod.POST)
+    public DeferredResult<ResponseEntity<Ship>> updateShip(
+            @PathVariable(value = "id") Long id,
+            @RequestBody Ship ship,
+            @RequestParam(value = "timeout", required = false) Long timeout) {
+        return execute(writeExecutor, timeout, () -> shipController.updateShip(id, ship));
+    }
+
+    @RequestMapping(path = "/rest/async/ships/{id}", method = RequestMethod.DELETE)
+    public DeferredResult<ResponseEntity<Ship>> deleteShip(
+            @PathVariable(value = "id") Long id,
+            @RequestParam(value = "timeout", required = false) Long timeout) {
+        return execute(writeExecutor, timeout, () -> shipController.deleteShip(id));
+    }
+
+    /**
+     * Ставит task в очередь executor. Если очередь заполнена, сразу отвечает 503.
+     * По истечении timeout отвечает 503; задача, которая еще не начала выполняться, снимается с очереди
+     */
+    private <T> DeferredResult<ResponseEntity<T>> execute(AsyncTaskExecutor executor, Long timeout,
+                                                          Callable<ResponseEntity<T>> task) {
+        long timeoutMillis = timeout == null || timeout <= 0 ? defaultTimeout : Math.min(timeout, maxTimeout);
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(timeoutMillis,
+                new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+        Future<?> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    result.setResult(task.call());
+                } catch (Exception e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            result.setResult(new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+            return result;
+        }
+        result.onTimeout(() -> future.cancel(false));
+        return result;
+    }
+}
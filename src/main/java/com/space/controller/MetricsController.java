@@ -0,0 +1,57 @@
+package com.space.controller;
+
+import com.space.config.ConnectionPoolMetrics;
+import com.space.service.ShipChangeFeed;
+import com.space.service.ShipQueryCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Служебные показатели работы приложения
+ */
+@RestController
+public class MetricsController {
+
+    private ShipQueryCache shipQueryCache;
+    private ConnectionPoolMetrics connectionPoolMetrics;
+    private ShipChangeFeed shipChangeFeed;
+
+    public MetricsController() {
+    }
+
+    @Autowired
+    public MetricsController(ShipQueryCache shipQueryCache, ConnectionPoolMetrics connectionPoolMetrics,
+                             ShipChangeFeed shipChangeFeed) {
+        this.shipQueryCache = shipQueryCache;
+        this.connectionPoolMetrics = connectionPoolMetrics;
+        this.shipChangeFeed = shipChangeFeed;
+    }
+
+    /**
+     * Попадания, промахи, вытеснения и инвалидации кэша результатов поиска
+     */
+    @RequestMapping(path = "/rest/metrics/cache", method = RequestMethod.GET)
+    public Map<String, Object> getCacheMetrics() {
+        return shipQueryCache.getMetrics();
+    }
+
+    /**
+     * Занятые, свободные и ожидающие соединения пулов основной БД и реплики, время ожидания соединения
+     */
+    @RequestMapping(path = "/rest/metrics/pool", method = RequestMethod.GET)
+    public Map<String, Object> getPoolMetrics() {
+        return connectionPoolMetrics.getMetrics();
+    }
+
+    /**
+     * Подписчики потока изменений, отправленные события и отключенные медленные подписчики
+     */
+    @RequestMapping(path = "/rest/metrics/events", method = RequestMethod.GET)
+    public Map<String, Object> getEventMetrics() {
+        return shipChangeFeed.getMetrics();
+    }
+}
@@ -2,18 +2,27 @@ package com.space.controller;
 
 
 import com.space.model.Ship;
-import com.space.model.ShipType;
+import com.space.service.ShipBulkResult;
+import com.space.service.ShipCursor;
+import com.space.service.ShipQuery;
 import com.space.service.ShipService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
 public class ShipController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private ShipService shipService;
 
     public ShipController() {
@@ -50,81 +59,145 @@ public class ShipController {
         return new ResponseEntity<>(savedShip, HttpStatus.OK);
     }
 
+    /**
+     * Массовое создание кораблей. Каждый корабль проверяется по тем же правилам, что и в POST /rest/ships;
+     * корабли с ошибками не создаются, остальные сохраняются пакетами.
+     * Ответ содержит результат по каждому кораблю: созданный корабль с id или причину отказа.
+     * Если список пустой или длиннее ShipService.MAX_BULK_SIZE, необходимо ответить ошибкой с кодом 400.
+     * @param ships
+     * @return
+     */
+    @RequestMapping(path = "/rest/ships/bulk", method = RequestMethod.POST)
+    @ResponseBody
+    public ResponseEntity<ShipBulkResult> createShips(@RequestBody List<Ship> ships) {
+        if (ships == null || ships.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(shipService.createShips(ships), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     /**
      * Поиск по полям name и planet происходить по частичному соответствию. Например, если в БД есть корабль с именем
      * «Левиафан», а параметр name задан как «иа» - такой корабль должен отображаться в результатах (Левиафан).
      * pageNumber – параметр, который отвечает за номер отображаемой страницы при использовании пейджинга.
      * Нумерация начинается с нуля
      * pageSize – параметр, который отвечает за количество результатов на одной странице при пейджинге
-     * @param name
-     * @param planet
-     * @param shipType
-     * @param after
-     * @param before
-     * @param isUsed
-     * @param minSpeed
-     * @param maxSpeed
-     * @param minCrewSize
-     * @param maxCrewSize
-     * @param minRating
-     * @param maxRating
+     * cursor – позиция для обхода по ключу вместо pageNumber. Пустое значение - начало списка.
+     * Курсор следующей страницы возвращается в заголовке X-Next-Cursor, если страница заполнена целиком.
+     * ETag ответа - версия каталога и параметры запроса; если If-None-Match совпадает с ним,
+     * необходимо ответить кодом 304 без запроса к БД.
+     * @param query параметры name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed,
+     *              minCrewSize, maxCrewSize, minRating, maxRating, см. {@link ShipQueryArgumentResolver}
      * @param order
      * @param pageNumber
      * @param pageSize
+     * @param cursor
+     * @param request
      * @return
      */
     @RequestMapping(path = "/rest/ships", method = RequestMethod.GET)
-    public List<Ship> getAllShips(
-            @RequestParam(value = "name", required = false) String name,
-            @RequestParam(value = "planet", required = false) String planet,
-            @RequestParam(value = "shipType", required = false) ShipType shipType,
-            @RequestParam(value = "after", required = false) Long after,
-            @RequestParam(value = "before", required = false) Long before,
-            @RequestParam(value = "isUsed", required = false) Boolean isUsed,
-            @RequestParam(value = "minSpeed", required = false) Double minSpeed,
-            @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
-            @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
-            @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
-            @RequestParam(value = "minRating", required = false) Double minRating,
-            @RequestParam(value = "maxRating", required = false) Double maxRating,
+    public ResponseEntity<List<Ship>> getAllShips(
+            ShipQuery query,
+            @RequestParam(value = "order", required = false) ShipOrder order,
+            @RequestParam(value = "pageNumber", required = false) Integer pageNumber,
+            @RequestParam(value = "pageSize", required = false) Integer pageSize,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            ServletWebRequest request
+    ) {
+        if (request.checkNotModified(catalogEtag(request))) {
+            return null; //304
+        }
+        return getAllShips(query, order, pageNumber, pageSize, cursor);
+    }
+
+    public ResponseEntity<List<Ship>> getAllShips(ShipQuery query, ShipOrder order, Integer pageNumber,
+                                                  Integer pageSize, String cursor) {
+        if (cursor != null) {
+            return getShipsAfterCursor(query, order, cursor, pageSize);
+        }
+        // фильтрация, сортировка по order и выбор страницы выполняются одним запросом к БД
+        return new ResponseEntity<>(shipService.getShips(query, order, pageNumber, pageSize), HttpStatus.OK);
+    }
+
+    private ResponseEntity<List<Ship>> getShipsAfterCursor(ShipQuery query, ShipOrder order,
+                                                           String cursor, Integer pageSize) {
+        ShipCursor position;
+        try {
+            position = cursor.isEmpty() ? ShipCursor.start(order) : ShipCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        //Курсор нельзя продолжить с другой сортировкой
+        if (order != null && order != position.getOrder()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<Ship> ships = shipService.getShipsAfter(query, position, pageSize);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (!ships.isEmpty() && ships.size() == (pageSize == null ? ShipService.DEFAULT_PAGE_SIZE : pageSize)) {
+            headers.set(NEXT_CURSOR_HEADER,
+                    ShipCursor.after(position.getOrder(), ships.get(ships.size() - 1)).encode());
+        }
+        return new ResponseEntity<>(ships, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Поиск кораблей с теми же параметрами, что и у GET /rest/ships.
+     * Возвращает страницу кораблей, общее количество найденных кораблей и данные пейджинга,
+     * чтобы клиенту не нужен был отдельный запрос GET /rest/ships/count.
+     */
+    @RequestMapping(path = "/rest/ships/search", method = RequestMethod.GET)
+    public ShipPage searchShips(
+            ShipQuery query,
             @RequestParam(value = "order", required = false) ShipOrder order,
             @RequestParam(value = "pageNumber", required = false) Integer pageNumber,
             @RequestParam(value = "pageSize", required = false) Integer pageSize
     ) {
-        List<Ship> ships = shipService.getAllShips(
-                name, planet, shipType, after,
-                before, isUsed, minSpeed, maxSpeed,
-                minCrewSize, maxCrewSize, minRating, maxRating
-        );
-        //Получаем отсортированный список по order
-        List<Ship> sortedShips = shipService.sortShips(ships, order);
-        // указываем номер страницы и максимальное кол-во на ней
-        return shipService.getPage(sortedShips, pageNumber, pageSize);
-    }
-
-  @RequestMapping(path = "/rest/ships/count", method = RequestMethod.GET)
-    public Integer getShipsCount(
-          @RequestParam(name = "name", required = false) String name,
-          @RequestParam(name = "planet", required = false) String planet,
-          @RequestParam(name = "shipType", required = false) ShipType shipType,
-          @RequestParam(name = "after", required = false) Long after,
-          @RequestParam(name = "before", required = false) Long before,
-          @RequestParam(name = "isUsed", required = false) Boolean isUsed,
-          @RequestParam(name = "minSpeed", required = false) Double minSpeed,
-          @RequestParam(name = "maxSpeed", required = false) Double maxSpeed,
-          @RequestParam(name = "minCrewSize", required = false) Integer minCrewSize,
-          @RequestParam(name = "maxCrewSize", required = false) Integer maxCrewSize,
-          @RequestParam(name = "minRating", required = false) Double minRating,
-          @RequestParam(name = "maxRating", required = false) Double maxRating
-  ){
-
-      return shipService.getAllShips(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed,
-              minCrewSize, maxCrewSize, minRating, maxRating).size();
+        return new ShipPage(shipService.searchShips(query, order, pageNumber, pageSize));
+    }
+
+    /**
+     * Количество кораблей, подходящих под фильтры. ETag - как у GET /rest/ships
+     */
+    @RequestMapping(path = "/rest/ships/count", method = RequestMethod.GET)
+    public ResponseEntity<Long> getShipsCount(ShipQuery query, ServletWebRequest request) {
+        if (request.checkNotModified(catalogEtag(request))) {
+            return null; //304
+        }
+        return new ResponseEntity<>(getShipsCount(query), HttpStatus.OK);
+    }
+
+  public Long getShipsCount(ShipQuery query){
+
+      return shipService.countShips(query);
 
   }
 
+    /**
+     * Корабль по id. ETag - id и версия корабля; если If-None-Match совпадает с ним,
+     * необходимо ответить кодом 304, не загружая корабль
+     */
     @RequestMapping(path = "/rest/ships/{id}", method = RequestMethod.GET)
-    public ResponseEntity<Ship> getShip(@PathVariable(value = "id") Long id) {
+    public ResponseEntity<Ship> getShip(@PathVariable(value = "id") Long id, ServletWebRequest request) {
+        if (id == null || id <= 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Long version = shipService.getShipVersion(id);
+        if (version == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (request.checkNotModified("s" + id + "." + version)) {
+            return null; //304
+        }
+        return getShip(id);
+    }
+
+    public ResponseEntity<Ship> getShip(Long id) {
         //Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
         if (id == null || id <= 0)
         {
@@ -143,34 +216,82 @@ public class ShipController {
     public ResponseEntity<Ship> updateShip(@PathVariable(value = "id") Long id,
             @RequestBody Ship ship
     ) {
-        ResponseEntity<Ship> entity = getShip(id);
-
-        if(entity == null) return new ResponseEntity<>(HttpStatus.NOT_FOUND); //Если корабль не найден в БД, необходимо ответить ошибкой с кодом 404.
-
-        Ship savedShip = entity.getBody();
-        if (savedShip == null) {
-            return entity;
+        //Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
+        if (id == null || id <= 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
         Ship result;
         try {
-            result = shipService.updateShip(savedShip, ship);
+            result = shipService.updateShip(id, ship);
         } catch (IllegalArgumentException e) {
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);//Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT); //Корабль изменен параллельным запросом
         }
-        return new ResponseEntity<>(result, HttpStatus.OK);
+        return result == null
+                ? new ResponseEntity<>(HttpStatus.NOT_FOUND) //Если корабль не найден в БД, необходимо ответить ошибкой с кодом 404.
+                : new ResponseEntity<>(result, HttpStatus.OK);
     }
 //Если корабль не найден в БД, необходимо ответить ошибкой с кодом 404.
 //Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
     @RequestMapping(path = "/rest/ships/{id}", method = RequestMethod.DELETE)
     public ResponseEntity<Ship> deleteShip(@PathVariable(value = "id") Long id) {
-        ResponseEntity<Ship> entity = getShip(id);
-        if(entity == null) return new ResponseEntity<>(HttpStatus.NOT_FOUND); //Если корабль не найден в БД, необходимо ответить ошибкой с кодом 404.
-        Ship savedShip = entity.getBody();
-        if (savedShip == null) {
-            return entity;
-        }
-        shipService.deleteShip(savedShip);
-        return new ResponseEntity<>(HttpStatus.OK);
+        if (id == null || id <= 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return shipService.deleteShip(id)
+                    ? new ResponseEntity<>(HttpStatus.OK)
+                    : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    /**
+     * Изменение всех кораблей, подходящих под фильтры (те же параметры, что и в GET /rest/ships).
+     * Тело запроса - значения полей, как в POST /rest/ships/{id}; rating пересчитывается.
+     * Возвращает количество измененных кораблей.
+     * Если не задан ни один фильтр или значения не проходят проверку, необходимо ответить ошибкой с кодом 400.
+     * @param query
+     * @param values
+     * @return
+     */
+    @RequestMapping(path = "/rest/ships/update", method = RequestMethod.POST)
+    @ResponseBody
+    public ResponseEntity<Long> updateShips(ShipQuery query, @RequestBody Ship values) {
+        try {
+            return new ResponseEntity<>(shipService.updateShips(query, values), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Удаление всех кораблей, подходящих под фильтры. Возвращает количество удаленных кораблей.
+     * Если не задан ни один фильтр, необходимо ответить ошибкой с кодом 400.
+     * @param query
+     * @return
+     */
+    @RequestMapping(path = "/rest/ships", method = RequestMethod.DELETE)
+    @ResponseBody
+    public ResponseEntity<Long> deleteShips(ShipQuery query) {
+        try {
+            return new ResponseEntity<>(shipService.deleteShips(query), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * ETag результатов поиска: версия каталога из БД и MD5 строки параметров запроса.
+     * Пока версия каталога та же, ответ на тот же запрос тот же. Версия читается до самого поиска
+     * и тем же путем (с реплики, если она задана), поэтому ETag не бывает новее данных ответа
+     */
+    private String catalogEtag(ServletWebRequest request) {
+        String parameters = request.getRequest().getQueryString();
+        byte[] bytes = parameters == null ? new byte[0] : parameters.getBytes(StandardCharsets.UTF_8);
+        return "c" + shipService.getCatalogVersion() + "." + DigestUtils.md5DigestAsHex(bytes);
     }
 }
@@ -0,0 +1,71 @@
+package com.space.controller;
+
+import com.space.service.ShipChangeEvent;
+import com.space.service.ShipChangeFeed;
+import com.space.service.ShipQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * Поток изменений кораблей (Server-Sent Events), чтобы клиенту не нужно было опрашивать GET /rest/ships
+ */
+@RestController
+public class ShipEventsController {
+
+    private ShipChangeFeed shipChangeFeed;
+    private long timeout;
+
+    public ShipEventsController() {
+    }
+
+    @Autowired
+    public ShipEventsController(ShipChangeFeed shipChangeFeed,
+                                @Value("${ship.events.timeout-ms:1800000}") long timeout) {
+        this.shipChangeFeed = shipChangeFeed;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Изменения кораблей, подходящих под фильтры (те же параметры, что и в GET /rest/ships), после подключения.
+     * Имя события - тип изменения (CREATED, UPDATED, DELETED, CHANGED, см. {@link ShipChangeEvent}),
+     * id - номер события, данные - JSON события с кораблем.
+     * Если клиент не успевает получать события, подключение закрывается; клиенту нужно перечитать
+     * корабли и подключиться заново. Подключение также закрывается через ship.events.timeout-ms
+     * @param query
+     * @return
+     * @throws IOException
+     */
+    @RequestMapping(path = "/rest/ships/events", method = RequestMethod.GET,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(ShipQuery query) throws IOException {
+        SseEmitter emitter = new SseEmitter(timeout);
+        ShipChangeFeed.Subscription subscription = shipChangeFeed.subscribe(query, new ShipChangeFeed.Sink() {
+            @Override
+            public void send(ShipChangeEvent event) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.getSequence()))
+                        .name(event.getType().name())
+                        .data(event, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+
+        //Заголовки ответа уходят клиенту сразу, а не с первым изменением
+        emitter.send(SseEmitter.event().comment("subscribed"));
+        return emitter;
+    }
+}
@@ -0,0 +1,68 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.space.service.ShipQuery;
+import com.space.service.ShipService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Выгрузка каталога кораблей потоком, без построения всего списка в памяти
+ */
+@RestController
+public class ShipExportController {
+
+    static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    private ShipService shipService;
+    private ObjectMapper objectMapper;
+
+    public ShipExportController() {
+    }
+
+    @Autowired
+    public ShipExportController(ShipService shipService, ObjectMapper objectMapper) {
+        this.shipService = shipService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Корабли, подходящие под фильтры (те же параметры, что и в GET /rest/ships), в порядке id
+     * в формате NDJSON: по одному JSON-объекту корабля на строку.
+     * Каждый корабль пишется в ответ сразу после чтения из БД
+     * @param query
+     * @param response
+     * @throws IOException
+     */
+    @RequestMapping(path = "/rest/ships/export", method = RequestMethod.GET)
+    public void exportShips(ShipQuery query, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+
+        //Без сброса буфера после каждого корабля: ответ отправляется крупными частями
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            try {
+                shipService.exportShips(query, ship -> {
+                    try {
+                        writer.writeValue(generator, ship);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
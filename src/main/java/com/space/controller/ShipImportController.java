@@ -0,0 +1,74 @@
+package com.space.controller;
+
+import com.space.service.ShipImportResult;
+import com.space.service.ShipImporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Загрузка кораблей из файла потоком, без чтения всего тела запроса в память
+ */
+@RestController
+public class ShipImportController {
+
+    static final String CSV_CONTENT_TYPE = "text/csv";
+
+    private ShipImporter shipImporter;
+
+    public ShipImportController() {
+    }
+
+    @Autowired
+    public ShipImportController(ShipImporter shipImporter) {
+        this.shipImporter = shipImporter;
+    }
+
+    /**
+     * Создание кораблей из тела запроса в формате NDJSON (по одному JSON-объекту корабля на строку, как в
+     * GET /rest/ships/export) или CSV с заголовком. Формат задается параметром format (ndjson, csv),
+     * без него - по Content-Type: text/csv - CSV, иначе NDJSON.
+     * Каждая запись проверяется по тем же правилам, что и в POST /rest/ships; записи с ошибками пропускаются,
+     * остальные сохраняются частями, каждая часть в своей транзакции. Уже сохраненные части не откатываются.
+     * Ответ содержит количество созданных и отклоненных записей и причины отказа с номерами строк.
+     * Если format не ndjson и не csv, необходимо ответить ошибкой с кодом 400.
+     * @param format
+     * @param request
+     * @return
+     * @throws IOException
+     */
+    @RequestMapping(path = "/rest/ships/import", method = RequestMethod.POST)
+    public ResponseEntity<ShipImportResult> importShips(
+            @RequestParam(value = "format", required = false) String format,
+            HttpServletRequest request) throws IOException {
+        ShipImporter.Format importFormat;
+        if (format != null) {
+            try {
+                importFormat = ShipImporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        } else {
+            String contentType = request.getContentType();
+            importFormat = contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(CSV_CONTENT_TYPE)
+                    ? ShipImporter.Format.CSV
+                    : ShipImporter.Format.NDJSON;
+        }
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            return new ResponseEntity<>(shipImporter.importShips(reader, importFormat), HttpStatus.OK);
+        }
+    }
+}
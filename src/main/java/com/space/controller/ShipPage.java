@@ -0,0 +1,49 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Ответ поиска: корабли одной страницы вместе с общим количеством найденных кораблей
+ */
+public class ShipPage {
+
+    private List<Ship> ships; //Корабли текущей страницы
+    private long count; //Количество кораблей, подходящих под фильтры
+    private int pageNumber; //Номер страницы, нумерация с нуля
+    private int pageSize; //Максимальное количество кораблей на странице
+    private int pagesCount; //Количество страниц
+
+    public ShipPage() {
+    }
+
+    public ShipPage(Page<Ship> page) {
+        this.ships = page.getContent();
+        this.count = page.getTotalElements();
+        this.pageNumber = page.getNumber();
+        this.pageSize = page.getSize();
+        this.pagesCount = page.getTotalPages();
+    }
+
+    public List<Ship> getShips() {
+        return ships;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getPagesCount() {
+        return pagesCount;
+    }
+}
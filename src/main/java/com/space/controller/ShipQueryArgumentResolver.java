@@ -0,0 +1,54 @@
+package com.space.controller;
+
+import com.space.model.ShipType;
+import com.space.service.ShipQuery;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Собирает {@link ShipQuery} из параметров запроса name, planet, shipType, after, before, isUsed,
+ * minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating.
+ * Все параметры необязательные. Значение неверного типа приводит к ответу 400, как и для @RequestParam.
+ */
+public class ShipQueryArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return ShipQuery.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public ShipQuery resolveArgument(MethodParameter parameter,
+                                     ModelAndViewContainer mavContainer,
+                                     NativeWebRequest webRequest,
+                                     WebDataBinderFactory binderFactory) throws Exception {
+        return new ShipQuery(
+                param(webRequest, binderFactory, "name", String.class),
+                param(webRequest, binderFactory, "planet", String.class),
+                param(webRequest, binderFactory, "shipType", ShipType.class),
+                param(webRequest, binderFactory, "after", Long.class),
+                param(webRequest, binderFactory, "before", Long.class),
+                param(webRequest, binderFactory, "isUsed", Boolean.class),
+                param(webRequest, binderFactory, "minSpeed", Double.class),
+                param(webRequest, binderFactory, "maxSpeed", Double.class),
+                param(webRequest, binderFactory, "minCrewSize", Integer.class),
+                param(webRequest, binderFactory, "maxCrewSize", Integer.class),
+                param(webRequest, binderFactory, "minRating", Double.class),
+                param(webRequest, binderFactory, "maxRating", Double.class)
+        );
+    }
+
+    private <T> T param(NativeWebRequest webRequest, WebDataBinderFactory binderFactory,
+                        String name, Class<T> type) throws Exception {
+        String value = webRequest.getParameter(name);
+        if (value == null) {
+            return null;
+        }
+        WebDataBinder binder = binderFactory.createBinder(webRequest, null, name);
+        return binder.convertIfNecessary(value, type);
+    }
+}
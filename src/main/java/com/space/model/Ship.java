@@ -1,6 +1,11 @@
 package com.space.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Entity;
 import javax.persistence.*;
@@ -9,10 +14,18 @@ import java.util.Date;
 
 @Entity
 @Table(name = "ship")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Ship {
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    //id выделяются блоками из таблицы ship_sequence, поэтому Hibernate может вставлять корабли пакетами
+    @GeneratedValue(generator = "ship_id")
+    @GenericGenerator(name = "ship_id", strategy = "com.space.model.ShipIdGenerator", parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "ship_sequence"),
+            @Parameter(name = SequenceStyleGenerator.FORCE_TBL_PARAM, value = "true"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")})
     private Long id; //ID корабля
     @Column(name = "name")
     private String name; //Название корабля (до 50 знаков включительно)
@@ -31,6 +44,10 @@ public class Ship {
     private Integer crewSize; // Количество членов экипажа. Диапазон значений 1..9999 включительно.
     @Column(name = "rating")
     private Double rating;   // Рейтинг корабля. Используй математическое округление до сотых.
+    @Version
+    @Column(name = "version")
+    @JsonIgnore
+    private Long version; //Увеличивается при каждом изменении, для ETag и оптимистической блокировки
 
     public Long getId() {
         return id;
@@ -104,5 +121,27 @@ public class Ship {
         this.rating = rating;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Копия значений полей, не связанная с контекстом персистентности
+     */
+    public Ship copy() {
+        Ship copy = new Ship();
+        copy.id = id;
+        copy.name = name;
+        copy.planet = planet;
+        copy.shipType = shipType;
+        copy.prodDate = prodDate == null ? null : new Date(prodDate.getTime());
+        copy.isUsed = isUsed;
+        copy.speed = speed;
+        copy.crewSize = crewSize;
+        copy.rating = rating;
+        copy.version = version;
+        return copy;
+    }
+
 
 }
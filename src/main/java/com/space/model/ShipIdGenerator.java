@@ -0,0 +1,32 @@
+package com.space.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Генератор id кораблей: блоки id выделяются из таблицы ship_sequence и раздаются из памяти (pooled-lo).
+ * Размер блока по умолчанию берется из параметров {@link Ship#getId()}, настройка ship.id.allocation-size
+ * в свойствах JPA его заменяет.
+ */
+public class ShipIdGenerator extends SequenceStyleGenerator {
+
+    /**
+     * Свойство JPA с размером блока id
+     */
+    public static final String ALLOCATION_SIZE_SETTING = "ship.id.allocation-size";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object allocationSize = serviceRegistry.getService(ConfigurationService.class).getSettings()
+                .get(ALLOCATION_SIZE_SETTING);
+        if (allocationSize != null) {
+            params.setProperty(INCREMENT_PARAM, allocationSize.toString());
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+}
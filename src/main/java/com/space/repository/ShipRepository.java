@@ -1,9 +1,43 @@
 package com.space.repository;
 
 import com.space.model.Ship;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+
+/**
+ * Запросы поиска помечены для кэша запросов Hibernate. Он используется, только если включен
+ * ship.hibernate.cache.enabled, и сбрасывается при любом изменении таблицы ship.
+ */
 @Repository
-public interface ShipRepository extends JpaRepository<Ship, Long> {
+public interface ShipRepository extends JpaRepository<Ship, Long>, JpaSpecificationExecutor<Ship>,
+        ShipRepositoryCustom {
+
+    @Override
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
+    List<Ship> findAll(Specification<Ship> spec, Sort sort);
+
+    @Override
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
+    Page<Ship> findAll(Specification<Ship> spec, Pageable pageable);
+
+    @Override
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
+    long count(Specification<Ship> spec);
+
+    /**
+     * Версия корабля без загрузки остальных полей; null, если корабля нет
+     */
+    @Query("select s.version from Ship s where s.id = :id")
+    Long findVersionById(@Param("id") Long id);
 }
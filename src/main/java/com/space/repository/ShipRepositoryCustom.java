@@ -0,0 +1,72 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Запросы к кораблям, которых нет в стандартных интерфейсах Spring Data.
+ */
+public interface ShipRepositoryCustom {
+
+    /**
+     * Возвращает одну страницу подходящих кораблей (ORDER BY, LIMIT, OFFSET) без подсчета общего количества.
+     * @param spec условие поиска
+     * @param pageable номер, размер страницы и сортировка
+     * @return корабли страницы
+     */
+    List<Ship> findSlice(Specification<Ship> spec, Pageable pageable);
+
+    /**
+     * Сохраняет новые корабли частями по ship.jdbc.batch-size: после каждой части изменения отправляются
+     * в БД пакетом, а контекст персистентности очищается, чтобы не держать в памяти все корабли.
+     * После вызова корабли отсоединены от контекста, id заполнены
+     * @param ships новые корабли без id
+     */
+    void persistAll(List<Ship> ships);
+
+    /**
+     * Передает подходящие корабли в порядке id в consumer по одному, читая их курсором JDBC только вперед
+     * частями по ship.export.fetch-size строк. Каждый корабль отсоединяется от контекста после передачи,
+     * поэтому расход памяти не зависит от количества кораблей. Вызывается внутри транзакции
+     * @param spec условие поиска
+     * @param consumer получатель кораблей
+     */
+    void forEachMatching(Specification<Ship> spec, Consumer<Ship> consumer);
+
+    /**
+     * id подходящих кораблей
+     * @param spec условие поиска
+     */
+    List<Long> findIds(Specification<Ship> spec);
+
+    /**
+     * Изменяет все подходящие корабли одним UPDATE: задает не null поля values, кроме id и rating.
+     * Если меняется speed, prodDate или isUsed, rating пересчитывается в том же UPDATE.
+     * После вызова контекст персистентности очищен
+     * @param spec условие поиска
+     * @param values новые значения полей
+     * @return количество измененных кораблей
+     */
+    int updateMatching(Specification<Ship> spec, Ship values);
+
+    /**
+     * Удаляет все подходящие корабли одним DELETE. После вызова контекст персистентности очищен
+     * @param spec условие поиска
+     * @return количество удаленных кораблей
+     */
+    int deleteMatching(Specification<Ship> spec);
+
+    /**
+     * Версия каталога кораблей из таблицы ship_catalog
+     */
+    long findCatalogVersion();
+
+    /**
+     * Увеличивает версию каталога кораблей. Вызывается в транзакции, изменяющей корабли
+     */
+    void incrementCatalogVersion();
+}
@@ -0,0 +1,218 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ShipRepositoryImpl implements ShipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${ship.jdbc.batch-size:50}")
+    private int batchSize;
+
+    @Value("${ship.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Override
+    public List<Ship> findSlice(Specification<Ship> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Ship> typedQuery = entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_CACHEABLE, true);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachMatching(Specification<Ship> spec, Consumer<Ship> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        //Только чтение и без кэша второго уровня: выгрузка не должна вытеснять из него часто читаемые корабли
+        Query<Ship> hibernateQuery = entityManager.createQuery(query).unwrap(Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE);
+        try (ScrollableResults results = hibernateQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Ship ship = (Ship) results.get(0);
+                consumer.accept(ship);
+                entityManager.detach(ship);
+            }
+        }
+    }
+
+    @Override
+    public List<Long> findIds(Specification<Ship> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Ship> root = query.from(Ship.class);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root.<Long>get("id")).orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public int updateMatching(Specification<Ship> spec, Ship values) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Ship> update = cb.createCriteriaUpdate(Ship.class);
+        Root<Ship> root = update.from(Ship.class);
+
+        //Условия поиска не используют CriteriaQuery, поэтому подходят и для UPDATE
+        Predicate predicate = spec.toPredicate(root, null, cb);
+        if (predicate != null) {
+            update.where(predicate);
+        }
+        if (values.getName() != null) {
+            update.set(root.<String>get("name"), values.getName());
+        }
+        if (values.getPlanet() != null) {
+            update.set(root.<String>get("planet"), values.getPlanet());
+        }
+        if (values.getShipType() != null) {
+            update.set(root.<ShipType>get("shipType"), values.getShipType());
+        }
+        if (values.getProdDate() != null) {
+            update.set(root.<Date>get("prodDate"), values.getProdDate());
+        }
+        if (values.getUsed() != null) {
+            update.set(root.<Boolean>get("isUsed"), values.getUsed());
+        }
+        if (values.getSpeed() != null) {
+            update.set(root.<Double>get("speed"), values.getSpeed());
+        }
+        if (values.getCrewSize() != null) {
+            update.set(root.<Integer>get("crewSize"), values.getCrewSize());
+        }
+        if (values.getSpeed() != null || values.getProdDate() != null || values.getUsed() != null) {
+            update.set(root.<Double>get("rating"), rating(cb, root, values));
+        }
+        //Массовый UPDATE не проходит через Hibernate, версию увеличиваем сами
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+
+        int count = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return count;
+    }
+
+    @Override
+    public int deleteMatching(Specification<Ship> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Ship> delete = cb.createCriteriaDelete(Ship.class);
+        Root<Ship> root = delete.from(Ship.class);
+
+        Predicate predicate = spec.toPredicate(root, null, cb);
+        if (predicate != null) {
+            delete.where(predicate);
+        }
+
+        int count = entityManager.createQuery(delete).executeUpdate();
+        entityManager.clear();
+        return count;
+    }
+
+    /**
+     * Рейтинг по формуле из ShipServiceImpl.computeRating: FLOOR(80 * speed * k / (3019 - year + 1) * 100 + 0.5) / 100,
+     * где k = 0.5 для использованного корабля и 1 для нового.
+     * Поля, которые задает тот же UPDATE, подставляются новыми значениями, остальные берутся из строки
+     */
+    private Expression<Double> rating(CriteriaBuilder cb, Root<Ship> root, Ship values) {
+        Expression<Double> speed = values.getSpeed() != null
+                ? cb.literal(values.getSpeed())
+                : root.<Double>get("speed");
+        Expression<Double> k = values.getUsed() != null
+                ? cb.literal(values.getUsed() ? 0.5 : 1.)
+                : cb.<Double>selectCase().when(cb.isTrue(root.<Boolean>get("isUsed")), 0.5).otherwise(1.);
+        Expression<Integer> year;
+        if (values.getProdDate() != null) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTime(values.getProdDate());
+            year = cb.literal(calendar.get(Calendar.YEAR));
+        } else {
+            year = cb.function("year", Integer.class, root.<Date>get("prodDate"));
+        }
+
+        Expression<Number> raw = cb.quot(cb.prod(cb.prod(cb.literal(80.), speed), k),
+                cb.diff(cb.literal(3019 + 1), year));
+        return cb.quot(cb.function("floor", Double.class, cb.sum(cb.prod(raw, 100.), 0.5)), 100.).as(Double.class);
+    }
+
+    @Override
+    public void persistAll(List<Ship> ships) {
+        for (int i = 0; i < ships.size(); i++) {
+            entityManager.persist(ships.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    public long findCatalogVersion() {
+        Number version = (Number) entityManager
+                .createNativeQuery("SELECT version FROM ship_catalog WHERE id = 1")
+                .getSingleResult();
+        return version.longValue();
+    }
+
+    @Override
+    public void incrementCatalogVersion() {
+        //Без query space Hibernate сбросил бы весь кэш второго уровня, а эта таблица в нем не хранится
+        entityManager.createNativeQuery("UPDATE ship_catalog SET version = version + 1 WHERE id = 1")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("ship_catalog")
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,139 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Фильтры поиска кораблей в виде условий Criteria API.
+ * Все заданные параметры объединяются в одно условие WHERE, поэтому из БД
+ * выбираются только подходящие корабли.
+ */
+public final class ShipSpecifications {
+
+    /**
+     * Символ экранирования для LIKE. Обратный слеш не подходит: в MySQL он экранирует кавычку литерала.
+     */
+    private static final char LIKE_ESCAPE = '!';
+
+    private ShipSpecifications() {
+    }
+
+    public static Specification<Ship> filter(String name,
+                                             String planet,
+                                             ShipType shipType,
+                                             Long after,
+                                             Long before,
+                                             Boolean isUsed,
+                                             Double minSpeed,
+                                             Double maxSpeed,
+                                             Integer minCrewSize,
+                                             Integer maxCrewSize,
+                                             Double minRating,
+                                             Double maxRating) {
+        return (root, query, cb) -> toPredicate(root, cb, name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+
+    /**
+     * Строит условие по параметрам поиска. Параметры со значением null не участвуют в фильтрации.
+     * Поиск по name и planet - по частичному соответствию без учета регистра.
+     * after и before - строгие границы даты выпуска.
+     */
+    public static Predicate toPredicate(Root<Ship> root,
+                                        CriteriaBuilder cb,
+                                        String name,
+                                        String planet,
+                                        ShipType shipType,
+                                        Long after,
+                                        Long before,
+                                        Boolean isUsed,
+                                        Double minSpeed,
+                                        Double maxSpeed,
+                                        Integer minCrewSize,
+                                        Integer maxCrewSize,
+                                        Double minRating,
+                                        Double maxRating) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (name != null) {
+            predicates.add(cb.like(cb.lower(root.<String>get("name")), containsPattern(name), LIKE_ESCAPE));
+        }
+        if (planet != null) {
+            predicates.add(cb.like(cb.lower(root.<String>get("planet")), containsPattern(planet), LIKE_ESCAPE));
+        }
+        if (shipType != null) {
+            predicates.add(cb.equal(root.get("shipType"), shipType));
+        }
+        if (after != null) {
+            predicates.add(cb.greaterThan(root.<Date>get("prodDate"), new Date(after)));
+        }
+        if (before != null) {
+            predicates.add(cb.lessThan(root.<Date>get("prodDate"), new Date(before)));
+        }
+        if (isUsed != null) {
+            predicates.add(cb.equal(root.get("isUsed"), isUsed));
+        }
+        if (minSpeed != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<Double>get("speed"), minSpeed));
+        }
+        if (maxSpeed != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<Double>get("speed"), maxSpeed));
+        }
+        if (minCrewSize != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<Integer>get("crewSize"), minCrewSize));
+        }
+        if (maxCrewSize != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<Integer>get("crewSize"), maxCrewSize));
+        }
+        if (minRating != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<Double>get("rating"), minRating));
+        }
+        if (maxRating != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<Double>get("rating"), maxRating));
+        }
+
+        return cb.and(predicates.toArray(new Predicate[0]));
+    }
+
+    /**
+     * Условие "после корабля lastId" для сортировки по полю fieldName, а при равенстве - по id:
+     * fieldName > value OR (fieldName = value AND id > lastId).
+     * Если value равно null, сортировка идет только по id.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Ship> seek(String fieldName, Comparable value, Long lastId) {
+        return (root, query, cb) -> {
+            Predicate afterId = cb.greaterThan(root.<Long>get("id"), lastId);
+            if (value == null) {
+                return afterId;
+            }
+            Path<Comparable> field = root.get(fieldName);
+            return cb.or(cb.greaterThan(field, value), cb.and(cb.equal(field, value), afterId));
+        };
+    }
+
+    /**
+     * Шаблон LIKE "%value%" в нижнем регистре с экранированными служебными символами.
+     */
+    private static String containsPattern(String value) {
+        StringBuilder pattern = new StringBuilder(value.length() + 2).append('%');
+        //Тот же регистр, что у ShipQuery.toTerm: от локали сервера результат не зависит
+        for (char c : value.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.space.service;
+
+import com.space.model.Ship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Результат массового создания кораблей: по одному элементу на каждый переданный корабль в том же порядке
+ */
+public class ShipBulkResult {
+
+    private int created; //Количество созданных кораблей
+    private int rejected; //Количество кораблей, не прошедших проверку
+    private List<Item> items = new ArrayList<>();
+
+    void addCreated(int index, Ship ship) {
+        items.add(new Item(index, ship, null));
+        created++;
+    }
+
+    void addRejected(int index, String error) {
+        items.add(new Item(index, null, error));
+        rejected++;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * Созданный корабль или причина, по которой корабль не создан
+     */
+    public static class Item {
+
+        private int index; //Позиция корабля в запросе, нумерация с нуля
+        private Ship ship;
+        private String error;
+
+        Item(int index, Ship ship, String error) {
+            this.index = index;
+            this.ship = ship;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Ship getShip() {
+            return ship;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.space.service;
+
+import com.space.model.Ship;
+
+/**
+ * Изменение каталога кораблей с точки зрения одного подписчика.
+ * CREATED - корабль появился среди подходящих под фильтр подписчика (создан или изменен так, что стал подходить),
+ * UPDATED - изменен корабль, который подходит под фильтр и до, и после изменения,
+ * DELETED - корабль пропал из подходящих (удален или изменен так, что больше не подходит);
+ * в этих событиях ship - состояние корабля после изменения или перед удалением.
+ * CHANGED - массовое изменение, затронувшее count кораблей под фильтром подписчика (ship не задан):
+ * подходящие корабли нужно запросить заново.
+ */
+public class ShipChangeEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, CHANGED
+    }
+
+    private long sequence; //Номер события, растет в порядке публикации
+    private Type type;
+    private Ship ship;
+    private Long count;
+
+    ShipChangeEvent(long sequence, Type type, Ship ship, Long count) {
+        this.sequence = sequence;
+        this.type = type;
+        this.ship = ship;
+        this.count = count;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Ship getShip() {
+        return ship;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,225 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Рассылка изменений кораблей подписчикам. Изменения публикует ShipServiceImpl после коммита транзакции;
+ * каждый подписчик получает только события о кораблях, подходящих под его {@link ShipQuery}.
+ * События подписчика копятся в очереди длиной ship.events.buffer-size и отправляются потоками
+ * ship-events-N, так что медленный подписчик не задерживает ни запись, ни других подписчиков.
+ * Подписчик, очередь которого переполнилась, отключается: догнать поток изменений он уже не сможет.
+ */
+@Component
+public class ShipChangeFeed implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShipChangeFeed.class);
+
+    /**
+     * Получатель событий одного подписчика
+     */
+    public interface Sink {
+
+        /**
+         * Отправляет событие. Исключение отключает подписчика
+         */
+        void send(ShipChangeEvent event) throws IOException;
+
+        /**
+         * Вызывается один раз при отключении подписчика
+         */
+        void close();
+    }
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private int bufferSize;
+    private ExecutorService executor;
+
+    public ShipChangeFeed() {
+
+    }
+
+    @Autowired
+    public ShipChangeFeed(@Value("${ship.events.buffer-size:256}") int bufferSize,
+                          @Value("${ship.events.threads:4}") int threads) {
+        this.bufferSize = bufferSize;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "ship-events-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Подписывает sink на изменения кораблей, подходящих под query
+     */
+    public Subscription subscribe(ShipQuery query, Sink sink) {
+        Subscription subscription = new Subscription(query, sink);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Изменение одного корабля. before - состояние до изменения (null для нового корабля),
+     * after - после (null для удаленного)
+     */
+    public void shipChanged(Ship before, Ship after) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        long number = sequence.incrementAndGet();
+        for (Subscription subscription : subscriptions) {
+            boolean matchedBefore = before != null && subscription.query.test(before);
+            boolean matchesAfter = after != null && subscription.query.test(after);
+            if (matchedBefore && matchesAfter) {
+                subscription.offer(new ShipChangeEvent(number, ShipChangeEvent.Type.UPDATED, after, null));
+            } else if (matchesAfter) {
+                subscription.offer(new ShipChangeEvent(number, ShipChangeEvent.Type.CREATED, after, null));
+            } else if (matchedBefore) {
+                subscription.offer(new ShipChangeEvent(number, ShipChangeEvent.Type.DELETED,
+                        after != null ? after : before, null));
+            }
+        }
+    }
+
+    /**
+     * Массовое создание кораблей: подписчик получает одно событие CHANGED с количеством
+     * подходящих ему кораблей, а не событие на каждый корабль
+     */
+    public void shipsCreated(Collection<Ship> created) {
+        if (subscriptions.isEmpty() || created.isEmpty()) {
+            return;
+        }
+        long number = sequence.incrementAndGet();
+        for (Subscription subscription : subscriptions) {
+            long count = created.stream().filter(subscription.query::test).count();
+            if (count > 0) {
+                subscription.offer(new ShipChangeEvent(number, ShipChangeEvent.Type.CHANGED, null, count));
+            }
+        }
+    }
+
+    /**
+     * Изменение или удаление count кораблей по фильтру, состояние которых неизвестно.
+     * Событие CHANGED получают все подписчики
+     */
+    public void shipsChanged(long count) {
+        if (subscriptions.isEmpty() || count == 0) {
+            return;
+        }
+        long number = sequence.incrementAndGet();
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(new ShipChangeEvent(number, ShipChangeEvent.Type.CHANGED, null, count));
+        }
+    }
+
+    /**
+     * Количество подписчиков, отправленных событий и подписчиков, отключенных из-за переполнения очереди
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("subscribers", subscriptions.size());
+        metrics.put("published", published.get());
+        metrics.put("droppedSubscribers", dropped.get());
+        metrics.put("bufferSize", bufferSize);
+        return metrics;
+    }
+
+    /**
+     * Подписка: фильтр, очередь неотправленных событий и получатель
+     */
+    public class Subscription {
+
+        private final ShipQuery query;
+        private final Sink sink;
+        private final BlockingQueue<ShipChangeEvent> queue;
+        //true, пока очередь разбирает поток рассылки; событиям одного подписчика нужен один поток за раз
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscription(ShipQuery query, Sink sink) {
+            this.query = query;
+            this.sink = sink;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+        }
+
+        private void offer(ShipChangeEvent event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                dropped.incrementAndGet();
+                LOG.warn("Ship events subscriber dropped: {} events not delivered", queue.size());
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                ShipChangeEvent event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    try {
+                        sink.send(event);
+                        published.incrementAndGet();
+                    } catch (IOException | RuntimeException e) {
+                        close();
+                    }
+                }
+                draining.set(false);
+                //Событие могло прийти после опустошения очереди, но до сброса draining
+            } while (!closed.get() && !queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        /**
+         * Отключает подписчика. Неотправленные события отбрасываются
+         */
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscriptions.remove(this);
+            queue.clear();
+            sink.close();
+        }
+    }
+}
@@ -0,0 +1,751 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.repository.ShipRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Копия каталога кораблей в памяти, разложенная по колонкам из примитивов.
+ * Фильтрация и сортировка идут по массивам без создания объектов на каждую строку,
+ * из БД затем загружаются только корабли нужной страницы.
+ * Включается свойством ship.index.enabled. Изменения вносит ShipServiceImpl после коммита транзакции.
+ * Индекс помнит версию каталога (ship_catalog), которой соответствует. Изменения другого экземпляра
+ * приложения в индекс не попадают, поэтому перед поиском версия сверяется с БД ({@link #sync(long)})
+ * и при расхождении индекс перечитывается целиком. При нескольких экземплярах и частых изменениях
+ * это полное перечитывание на каждое чужое изменение; в таком случае индекс лучше не включать.
+ * Начиная с ship.index.parallel.threshold строк фильтрация, сортировка и выборка страницы
+ * делятся между потоками собственного ForkJoinPool размером ship.index.parallel.threads.
+ * Результат параллельного поиска совпадает с последовательным.
+ * Поиск по подстроке name и planet длиной от трех символов сужается индексом триграмм ({@link TrigramIndex}).
+ * Строки удаленных кораблей переиспользуются для новых, поэтому размер колонок не превышает
+ * наибольшего числа кораблей, бывшего в каталоге одновременно.
+ */
+@Component
+public class ShipColumnIndex implements InitializingBean, DisposableBean {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_CREW_SIZE = Integer.MIN_VALUE;
+    private static final byte NO_SHIP_TYPE = -1;
+    //Размер части, которую поток параллельного поиска обрабатывает целиком
+    private static final int MATCH_CHUNK = 16384;
+    private static final int SORT_CHUNK = 8192;
+    private static final int COPY_CHUNK = 65536;
+    //Наибольшее offset + limit, при котором страница выбирается кучей без полной сортировки
+    private static final int TOP_K_LIMIT = 4096;
+    //Версия каталога неизвестна: индекс перечитывается при следующем поиске
+    private static final long UNKNOWN_VERSION = Long.MIN_VALUE;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ShipRepository shipRepository;
+    private TransactionTemplate transactionTemplate;
+    private boolean enabled;
+    private int parallelThreshold; //Количество строк, начиная с которого поиск идет параллельно
+    private ForkJoinPool pool; //null, если параллельный поиск выключен
+    private long catalogVersion = UNKNOWN_VERSION; //Версия каталога, которой соответствует содержимое
+
+    //Колонки, строка i описывает один корабль
+    private int size; //Количество занятых строк, включая удаленные
+    private int[] freeRows = new int[16]; //Строки удаленных кораблей, которые займут новые корабли
+    private int freeCount;
+    private long[] id = new long[INITIAL_CAPACITY];
+    private String[] name = new String[INITIAL_CAPACITY]; //в нижнем регистре
+    private String[] planet = new String[INITIAL_CAPACITY]; //в нижнем регистре
+    private byte[] shipType = new byte[INITIAL_CAPACITY]; //ShipType.ordinal()
+    private long[] prodDate = new long[INITIAL_CAPACITY];
+    private BitSet used = new BitSet(INITIAL_CAPACITY); //isUsed == true
+    private BitSet notUsed = new BitSet(INITIAL_CAPACITY); //isUsed == false
+    private double[] speed = new double[INITIAL_CAPACITY]; //NaN, если не задано
+    private int[] crewSize = new int[INITIAL_CAPACITY];
+    private double[] rating = new double[INITIAL_CAPACITY]; //NaN, если не задано
+    private BitSet live = new BitSet(INITIAL_CAPACITY); //строка не удалена
+    private Map<Long, Integer> rowById = new HashMap<>();
+    private final TrigramIndex nameGrams = new TrigramIndex();
+    private final TrigramIndex planetGrams = new TrigramIndex();
+
+    public ShipColumnIndex() {
+    }
+
+    @Autowired
+    public ShipColumnIndex(ShipRepository shipRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${ship.index.enabled:false}") boolean enabled,
+                           @Value("${ship.index.parallel.threshold:100000}") int parallelThreshold,
+                           @Value("${ship.index.parallel.threads:0}") int parallelThreads) {
+        this.shipRepository = shipRepository;
+        this.transactionTemplate = transactionManager == null ? null : new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.parallelThreshold = parallelThreshold;
+        if (enabled && parallelThreshold > 0) {
+            int threads = parallelThreads > 0 ? parallelThreads : Runtime.getRuntime().availableProcessors();
+            this.pool = new ForkJoinPool(threads, ShipColumnIndex::newWorkerThread, null, false);
+        }
+    }
+
+    private static ForkJoinWorkerThread newWorkerThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("ship-index-" + thread.getPoolIndex());
+        return thread;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Перечитывает все корабли из БД курсором, не загружая их в контекст персистентности все сразу.
+     * Вне транзакции открывается своя, не только для чтения, чтобы читать с основной БД, а не с отстающей
+     * реплики. Внутри транзакции поиска корабли и версия каталога читаются в ней, из той же БД,
+     * с которой сверялась версия
+     */
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            load();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Перечитывает индекс, если catalogVersion - текущая версия каталога в БД - отличается от версии индекса:
+     * каталог изменили в обход индекса (другой экземпляр приложения) или изменение этого экземпляра
+     * еще не внесено
+     */
+    public void sync(long catalogVersion) {
+        if (!enabled) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (this.catalogVersion == catalogVersion) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            //Пока ждали блокировку, индекс мог перечитать другой поток
+            if (this.catalogVersion != catalogVersion) {
+                load();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        clear();
+        transactionTemplate.execute(status -> {
+            //Версия читается до кораблей: если каталог изменится во время чтения, версия индекса
+            //окажется старше содержимого и индекс будет перечитан еще раз, но не наоборот
+            long version = shipRepository.findCatalogVersion();
+            shipRepository.forEachMatching(ShipQuery.all().toSpecification(), this::write);
+            catalogVersion = version;
+            return null;
+        });
+    }
+
+    /**
+     * Заменяет содержимое индекса кораблями ships, соответствующими версии каталога catalogVersion
+     */
+    public void rebuild(Iterable<Ship> ships, long catalogVersion) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (Ship ship : ships) {
+                write(ship);
+            }
+            this.catalogVersion = catalogVersion;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clear() {
+        catalogVersion = UNKNOWN_VERSION;
+        Arrays.fill(name, 0, size, null);
+        Arrays.fill(planet, 0, size, null);
+        size = 0;
+        freeCount = 0;
+        live.clear();
+        used.clear();
+        notUsed.clear();
+        rowById.clear();
+        nameGrams.clear();
+        planetGrams.clear();
+    }
+
+    /**
+     * Добавляет новый корабль или обновляет строку существующего.
+     * catalogVersion - версия каталога после коммита транзакции, изменившей корабль
+     */
+    public void put(Ship ship, long catalogVersion) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (advance(catalogVersion)) {
+                write(ship);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long shipId, long catalogVersion) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!advance(catalogVersion)) {
+                return;
+            }
+            Integer row = rowById.remove(shipId);
+            if (row != null) {
+                live.clear(row);
+                used.clear(row);
+                notUsed.clear(row);
+                nameGrams.remove(row, name[row]);
+                planetGrams.remove(row, planet[row]);
+                name[row] = null;
+                planet[row] = null;
+                if (freeCount == freeRows.length) {
+                    freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+                }
+                freeRows[freeCount++] = row;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * true, если изменение транзакции с версией каталога catalogVersion нужно внести в индекс.
+     * Одна транзакция вносит несколько изменений с одной версией. Изменения более ранних транзакций уже
+     * прочитаны при перечитывании индекса. Если пропущена транзакция другого экземпляра приложения,
+     * версия индекса становится неизвестной, и он перечитывается при следующем поиске
+     */
+    private boolean advance(long catalogVersion) {
+        if (catalogVersion < this.catalogVersion) {
+            return false;
+        }
+        if (catalogVersion > this.catalogVersion + 1) {
+            this.catalogVersion = UNKNOWN_VERSION;
+            return false;
+        }
+        this.catalogVersion = catalogVersion;
+        return true;
+    }
+
+    /**
+     * Количество строк колонок, включая освободившиеся после удаления кораблей
+     */
+    int rows() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Количество кораблей, подходящих под запрос
+     */
+    public int count(ShipQuery query) {
+        lock.readLock().lock();
+        try {
+            return match(query).length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет корабли, подходящие под запрос, отсортированные по order (при равенстве - по id).
+     * Возвращает id кораблей начиная с позиции offset, не более limit штук, и общее количество найденных.
+     * Для первых страниц сортируются только offset + limit лучших строк, для дальних - все найденные
+     */
+    public Hits find(ShipQuery query, ShipOrder order, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] found = match(query);
+            int total = found.length;
+            //Пустая страница: сортировать нечего, куча из нуля строк не строится
+            if (limit <= 0) {
+                return new Hits(new long[0], total);
+            }
+            long k = offset + limit;
+            RowComparator comparator = comparator(order);
+            int[] rows;
+            if (k < total && k <= TOP_K_LIMIT) {
+                rows = top(found, (int) k, comparator);
+            } else {
+                rows = found;
+                if (isParallel()) {
+                    pool.invoke(new SortTask(rows, new int[rows.length], 0, rows.length, comparator));
+                } else {
+                    sort(rows, new int[rows.length], 0, rows.length, comparator);
+                }
+            }
+
+            int from = (int) Math.min(offset, rows.length);
+            int to = (int) Math.min((long) from + limit, rows.length);
+            long[] ids = new long[to - from];
+            if (isParallel() && ids.length > COPY_CHUNK) {
+                pool.invoke(new CopyTask(rows, from, ids, 0, ids.length));
+            } else {
+                copyIds(rows, from, ids, 0, ids.length);
+            }
+            return new Hits(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] match(ShipQuery query) {
+        RowPredicate predicate = compile(query);
+        int[] candidates = candidates(query);
+        if (candidates != null) {
+            return matchCandidates(predicate, candidates);
+        }
+        return isParallel()
+                ? pool.invoke(new MatchTask(predicate, 0, size))
+                : matchRange(predicate, 0, size);
+    }
+
+    /**
+     * Строки из [from, to), которые не удалены и подходят под predicate, по возрастанию номера строки
+     */
+    private int[] matchRange(RowPredicate predicate, int from, int to) {
+        int[] rows = new int[Math.min(to - from, rowById.size())];
+        int found = 0;
+        for (int row = live.nextSetBit(from); row >= 0 && row < to; row = live.nextSetBit(row + 1)) {
+            if (predicate.test(row)) {
+                rows[found++] = row;
+            }
+        }
+        return found == rows.length ? rows : Arrays.copyOf(rows, found);
+    }
+
+    /**
+     * Строки-кандидаты по индексу триграмм name и planet или null, если подстроки слишком короткие
+     */
+    private int[] candidates(ShipQuery query) {
+        int[] byName = nameGrams.candidates(query.getNameTerm());
+        int[] byPlanet = planetGrams.candidates(query.getPlanetTerm());
+        if (byName == null || byPlanet == null) {
+            return byName == null ? byPlanet : byName;
+        }
+        return TrigramIndex.intersect(byName, byPlanet, byPlanet.length);
+    }
+
+    /**
+     * Кандидаты, которые не удалены и подходят под predicate. Совпадение триграмм не гарантирует
+     * наличие подстроки, поэтому predicate проверяет ее полностью
+     */
+    private int[] matchCandidates(RowPredicate predicate, int[] candidates) {
+        int found = 0;
+        for (int row : candidates) {
+            if (live.get(row) && predicate.test(row)) {
+                candidates[found++] = row;
+            }
+        }
+        return Arrays.copyOf(candidates, found);
+    }
+
+    private void copyIds(int[] rows, int rowsFrom, long[] ids, int from, int to) {
+        for (int i = from; i < to; i++) {
+            ids[i] = id[rows[rowsFrom + i]];
+        }
+    }
+
+    private boolean isParallel() {
+        return pool != null && size >= parallelThreshold;
+    }
+
+    /**
+     * Собирает из заданных критериев запроса одну проверку строки по колонкам
+     */
+    private RowPredicate compile(ShipQuery query) {
+        List<RowPredicate> criteria = new ArrayList<>();
+        if (query.getNameTerm() != null) {
+            String term = query.getNameTerm();
+            criteria.add(row -> name[row] != null && name[row].contains(term));
+        }
+        if (query.getPlanetTerm() != null) {
+            String term = query.getPlanetTerm();
+            criteria.add(row -> planet[row] != null && planet[row].contains(term));
+        }
+        if (query.getShipType() != null) {
+            byte type = (byte) query.getShipType().ordinal();
+            criteria.add(row -> shipType[row] == type);
+        }
+        if (query.getAfter() != null) {
+            long after = query.getAfter();
+            criteria.add(row -> prodDate[row] != NO_DATE && prodDate[row] > after);
+        }
+        if (query.getBefore() != null) {
+            long before = query.getBefore();
+            criteria.add(row -> prodDate[row] != NO_DATE && prodDate[row] < before);
+        }
+        if (query.getUsed() != null) {
+            BitSet column = query.getUsed() ? used : notUsed;
+            criteria.add(column::get);
+        }
+        if (query.getMinSpeed() != null) {
+            double min = query.getMinSpeed();
+            criteria.add(row -> speed[row] >= min);
+        }
+        if (query.getMaxSpeed() != null) {
+            double max = query.getMaxSpeed();
+            criteria.add(row -> speed[row] <= max);
+        }
+        if (query.getMinCrewSize() != null) {
+            int min = query.getMinCrewSize();
+            criteria.add(row -> crewSize[row] != NO_CREW_SIZE && crewSize[row] >= min);
+        }
+        if (query.getMaxCrewSize() != null) {
+            int max = query.getMaxCrewSize();
+            criteria.add(row -> crewSize[row] != NO_CREW_SIZE && crewSize[row] <= max);
+        }
+        if (query.getMinRating() != null) {
+            double min = query.getMinRating();
+            criteria.add(row -> rating[row] >= min);
+        }
+        if (query.getMaxRating() != null) {
+            double max = query.getMaxRating();
+            criteria.add(row -> rating[row] <= max);
+        }
+
+        RowPredicate[] compiled = criteria.toArray(new RowPredicate[0]);
+        return row -> {
+            for (RowPredicate criterion : compiled) {
+                if (!criterion.test(row)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private void write(Ship ship) {
+        Integer existing = rowById.get(ship.getId());
+        int row;
+        if (existing != null) {
+            row = existing;
+            nameGrams.remove(row, name[row]);
+            planetGrams.remove(row, planet[row]);
+        } else if (freeCount > 0) {
+            row = freeRows[--freeCount];
+            rowById.put(ship.getId(), row);
+        } else {
+            row = size++;
+            ensureCapacity(size);
+            rowById.put(ship.getId(), row);
+        }
+
+        id[row] = ship.getId();
+        name[row] = ShipQuery.toTerm(ship.getName());
+        planet[row] = ShipQuery.toTerm(ship.getPlanet());
+        nameGrams.add(row, name[row]);
+        planetGrams.add(row, planet[row]);
+        shipType[row] = ship.getShipType() == null ? NO_SHIP_TYPE : (byte) ship.getShipType().ordinal();
+        prodDate[row] = ship.getProdDate() == null ? NO_DATE : ship.getProdDate().getTime();
+        used.set(row, Boolean.TRUE.equals(ship.getUsed()));
+        notUsed.set(row, Boolean.FALSE.equals(ship.getUsed()));
+        speed[row] = ship.getSpeed() == null ? Double.NaN : ship.getSpeed();
+        crewSize[row] = ship.getCrewSize() == null ? NO_CREW_SIZE : ship.getCrewSize();
+        rating[row] = ship.getRating() == null ? Double.NaN : ship.getRating();
+        live.set(row);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= id.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, id.length + (id.length >> 1));
+        id = Arrays.copyOf(id, newCapacity);
+        name = Arrays.copyOf(name, newCapacity);
+        planet = Arrays.copyOf(planet, newCapacity);
+        shipType = Arrays.copyOf(shipType, newCapacity);
+        prodDate = Arrays.copyOf(prodDate, newCapacity);
+        speed = Arrays.copyOf(speed, newCapacity);
+        crewSize = Arrays.copyOf(crewSize, newCapacity);
+        rating = Arrays.copyOf(rating, newCapacity);
+    }
+
+    /**
+     * Сравнение строк по полю order, при равенстве - по id
+     */
+    private RowComparator comparator(ShipOrder order) {
+        ShipOrder rowOrder = order == null ? ShipOrder.ID : order;
+        switch (rowOrder) {
+            case SPEED: return (a, b) -> compare(Double.compare(speed[a], speed[b]), a, b);
+            case DATE: return (a, b) -> compare(Long.compare(prodDate[a], prodDate[b]), a, b);
+            case RATING: return (a, b) -> compare(Double.compare(rating[a], rating[b]), a, b);
+            default: return (a, b) -> Long.compare(id[a], id[b]);
+        }
+    }
+
+    private int compare(int byKey, int a, int b) {
+        return byKey != 0 ? byKey : Long.compare(id[a], id[b]);
+    }
+
+    /**
+     * Сортировка слиянием rows[from, to) с буфером buffer того же размера
+     */
+    private static void sort(int[] rows, int[] buffer, int from, int to, RowComparator comparator) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(rows, buffer, from, middle, comparator);
+        sort(rows, buffer, middle, to, comparator);
+        merge(rows, buffer, from, middle, to, comparator);
+    }
+
+    /**
+     * Первые k строк rows в порядке comparator за O(n log k): куча хранит k лучших строк,
+     * в корне - худшая из них. Порядок однозначен, так как comparator различает строки по id
+     */
+    private static int[] top(int[] rows, int k, RowComparator comparator) {
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int row : rows) {
+            if (heapSize < k) {
+                heap[heapSize] = row;
+                siftUp(heap, heapSize++, comparator);
+            } else if (comparator.compare(row, heap[0]) < 0) {
+                heap[0] = row;
+                siftDown(heap, 0, heapSize, comparator);
+            }
+        }
+        //Пирамидальная сортировка: худшая строка переносится в конец
+        for (int last = heapSize - 1; last > 0; last--) {
+            int worst = heap[0];
+            heap[0] = heap[last];
+            heap[last] = worst;
+            siftDown(heap, 0, last, comparator);
+        }
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, int position, RowComparator comparator) {
+        int row = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (comparator.compare(heap[parent], row) >= 0) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = row;
+    }
+
+    private static void siftDown(int[] heap, int position, int heapSize, RowComparator comparator) {
+        int row = heap[position];
+        int half = heapSize >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < heapSize && comparator.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (comparator.compare(row, heap[child]) >= 0) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = row;
+    }
+
+    /**
+     * Слияние отсортированных частей rows[from, middle) и rows[middle, to)
+     */
+    private static void merge(int[] rows, int[] buffer, int from, int middle, int to, RowComparator comparator) {
+        if (comparator.compare(rows[middle - 1], rows[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Параллельная фильтрация строк [from, to): части обрабатываются независимо и склеиваются по порядку
+     */
+    @SuppressWarnings("serial") //ForkJoinTask - Serializable, но задачи не сериализуются
+    private final class MatchTask extends RecursiveTask<int[]> {
+
+        private final RowPredicate predicate;
+        private final int from;
+        private final int to;
+
+        MatchTask(RowPredicate predicate, int from, int to) {
+            this.predicate = predicate;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= MATCH_CHUNK) {
+                return matchRange(predicate, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            MatchTask left = new MatchTask(predicate, from, middle);
+            left.fork();
+            int[] rightRows = new MatchTask(predicate, middle, to).compute();
+            int[] leftRows = left.join();
+
+            int[] rows = Arrays.copyOf(leftRows, leftRows.length + rightRows.length);
+            System.arraycopy(rightRows, 0, rows, leftRows.length, rightRows.length);
+            return rows;
+        }
+    }
+
+    /**
+     * Параллельная сортировка слиянием: половины сортируются в разных потоках, затем сливаются
+     */
+    @SuppressWarnings("serial")
+    private static final class SortTask extends RecursiveAction {
+
+        private final int[] rows;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+        private final RowComparator comparator;
+
+        SortTask(int[] rows, int[] buffer, int from, int to, RowComparator comparator) {
+            this.rows = rows;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SORT_CHUNK) {
+                sort(rows, buffer, from, to, comparator);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(rows, buffer, from, middle, comparator),
+                    new SortTask(rows, buffer, middle, to, comparator));
+            merge(rows, buffer, from, middle, to, comparator);
+        }
+    }
+
+    /**
+     * Параллельное заполнение ids[from, to) значениями id строк rows[rowsFrom + i]
+     */
+    @SuppressWarnings("serial")
+    private final class CopyTask extends RecursiveAction {
+
+        private final int[] rows;
+        private final int rowsFrom;
+        private final long[] ids;
+        private final int from;
+        private final int to;
+
+        CopyTask(int[] rows, int rowsFrom, long[] ids, int from, int to) {
+            this.rows = rows;
+            this.rowsFrom = rowsFrom;
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= COPY_CHUNK) {
+                copyIds(rows, rowsFrom, ids, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CopyTask(rows, rowsFrom, ids, from, middle),
+                    new CopyTask(rows, rowsFrom, ids, middle, to));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    @FunctionalInterface
+    private interface RowPredicate {
+        boolean test(int row);
+    }
+
+    /**
+     * Результат поиска: id кораблей страницы и общее количество найденных кораблей
+     */
+    public static final class Hits {
+
+        private final long[] ids;
+        private final int total;
+
+        Hits(long[] ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public long[] getIds() {
+            return ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция в отсортированном списке кораблей для постраничного обхода по ключу (keyset pagination).
+ * Хранит поле сортировки, значение этого поля и id последнего выданного корабля.
+ * Клиенту передается в виде непрозрачной строки, см. {@link #encode()}.
+ */
+public final class ShipCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final ShipOrder order;
+    private final Comparable<?> value; //Значение поля сортировки последнего корабля, null для ID и начала списка
+    private final Long id; //id последнего корабля, null для начала списка
+
+    private ShipCursor(ShipOrder order, Comparable<?> value, Long id) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * Позиция перед первым кораблем
+     */
+    public static ShipCursor start(ShipOrder order) {
+        return new ShipCursor(order == null ? ShipOrder.ID : order, null, null);
+    }
+
+    /**
+     * Позиция сразу после корабля ship
+     */
+    public static ShipCursor after(ShipOrder order, Ship ship) {
+        ShipOrder shipOrder = order == null ? ShipOrder.ID : order;
+        switch (shipOrder) {
+            case SPEED: return new ShipCursor(shipOrder, ship.getSpeed(), ship.getId());
+            case DATE: return new ShipCursor(shipOrder, ship.getProdDate().getTime(), ship.getId());
+            case RATING: return new ShipCursor(shipOrder, ship.getRating(), ship.getId());
+            default: return new ShipCursor(shipOrder, null, ship.getId());
+        }
+    }
+
+    /**
+     * Разбирает строку, полученную из {@link #encode()}
+     * @throws IllegalArgumentException если строка не является курсором
+     */
+    public static ShipCursor decode(String cursor) throws IllegalArgumentException {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(SEPARATOR, -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        ShipOrder order = ShipOrder.valueOf(parts[0]);
+        Long id = parts[2].isEmpty() ? null : Long.valueOf(parts[2]);
+        if (id == null || order == ShipOrder.ID) {
+            return new ShipCursor(order, null, id);
+        }
+        Comparable<?> value = order == ShipOrder.DATE ? (Comparable<?>) Long.valueOf(parts[1]) : Double.valueOf(parts[1]);
+        return new ShipCursor(order, value, id);
+    }
+
+    public String encode() {
+        String raw = order.name() + SEPARATOR
+                + (value == null ? "" : value) + SEPARATOR
+                + (id == null ? "" : id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ShipOrder getOrder() {
+        return order;
+    }
+
+    public Comparable<?> getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * true, если курсор указывает на начало списка
+     */
+    public boolean isStart() {
+        return id == null;
+    }
+}
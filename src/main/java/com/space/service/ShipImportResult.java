@@ -0,0 +1,93 @@
+package com.space.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог загрузки кораблей из файла. Хранит не все отклоненные записи, а только первые maxRejectedSamples,
+ * чтобы размер итога не зависел от размера файла
+ */
+public class ShipImportResult {
+
+    private long processed; //Количество прочитанных записей
+    private long created; //Количество созданных кораблей
+    private long rejected; //Количество отклоненных записей
+    private int chunks; //Количество закоммиченных частей
+    private long elapsedMillis;
+    private List<Rejection> rejectedSamples = new ArrayList<>(); //Первые отклоненные записи
+
+    @JsonIgnore
+    private int maxRejectedSamples;
+
+    ShipImportResult(int maxRejectedSamples) {
+        this.maxRejectedSamples = maxRejectedSamples;
+    }
+
+    void addProcessed() {
+        processed++;
+    }
+
+    void addCreated(int count) {
+        created += count;
+        chunks++;
+    }
+
+    void addRejected(long line, String error) {
+        rejected++;
+        if (rejectedSamples.size() < maxRejectedSamples) {
+            rejectedSamples.add(new Rejection(line, error));
+        }
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public List<Rejection> getRejectedSamples() {
+        return rejectedSamples;
+    }
+
+    /**
+     * Отклоненная запись: номер строки файла (с единицы) и причина
+     */
+    public static class Rejection {
+
+        private long line;
+        private String error;
+
+        Rejection(long line, String error) {
+            this.line = line;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.space.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Загрузка кораблей из NDJSON или CSV потоком. Записи читаются по одной строке, проверяются по правилам
+ * createShip и сохраняются частями по ship.import.commit-interval кораблей, каждая часть - в своей транзакции.
+ * В памяти одновременно находится не больше одной части, поэтому размер файла не ограничен.
+ *
+ * CSV: первая строка - заголовок с именами полей (name, planet, shipType, prodDate, isUsed, speed, crewSize)
+ * в любом порядке; значения в двойных кавычках могут содержать запятые, кавычка внутри них удваивается.
+ * prodDate - миллисекунды, как в JSON, или дата yyyy-MM-dd.
+ */
+@Component
+public class ShipImporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShipImporter.class);
+
+    //Запись корабля намного короче; более длинная строка отклоняется, чтобы не читать ее целиком в память
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private ShipService shipService;
+    private ObjectReader shipReader;
+    private int commitInterval;
+    private int maxRejectedSamples;
+
+    public ShipImporter() {
+
+    }
+
+    @Autowired
+    public ShipImporter(ShipService shipService,
+                        ObjectMapper objectMapper,
+                        @Value("${ship.import.commit-interval:1000}") int commitInterval,
+                        @Value("${ship.import.max-rejected-samples:100}") int maxRejectedSamples) {
+        this.shipService = shipService;
+        this.shipReader = objectMapper.readerFor(Ship.class);
+        this.commitInterval = Math.max(1, Math.min(commitInterval, ShipService.MAX_BULK_SIZE));
+        this.maxRejectedSamples = maxRejectedSamples;
+    }
+
+    /**
+     * Загружает корабли из reader до конца потока
+     * @return количество созданных и отклоненных записей, первые причины отказа
+     * @throws IOException если поток не читается
+     */
+    public ShipImportResult importShips(Reader reader, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        ShipImportResult result = new ShipImportResult(maxRejectedSamples);
+        List<Ship> chunk = new ArrayList<>(commitInterval);
+        long[] chunkLines = new long[commitInterval];
+
+        StringBuilder line = new StringBuilder();
+        Map<String, Integer> csvColumns = null;
+        long lineNumber = 0;
+        while (true) {
+            int status = readLine(reader, line);
+            if (status == END) {
+                break;
+            }
+            lineNumber++;
+            if (status == TOO_LONG) {
+                result.addProcessed();
+                result.addRejected(lineNumber, "Строка длиннее " + MAX_LINE_LENGTH + " символов");
+                continue;
+            }
+            if (line.toString().trim().isEmpty()) {
+                continue;
+            }
+            if (format == Format.CSV && csvColumns == null) {
+                csvColumns = parseCsvHeader(line);
+                continue;
+            }
+
+            result.addProcessed();
+            Ship ship;
+            try {
+                ship = format == Format.CSV ? parseCsv(line, csvColumns) : shipReader.readValue(line.toString());
+            } catch (IOException | IllegalArgumentException e) {
+                result.addRejected(lineNumber, "Запись не разобрана: " + e.getMessage());
+                continue;
+            }
+            chunkLines[chunk.size()] = lineNumber;
+            chunk.add(ship);
+            if (chunk.size() == commitInterval) {
+                commit(chunk, chunkLines, result);
+            }
+        }
+        commit(chunk, chunkLines, result);
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        LOG.info("Ship import finished: {} records, {} created, {} rejected in {} ms",
+                result.getProcessed(), result.getCreated(), result.getRejected(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * Сохраняет часть в отдельной транзакции и очищает ее
+     */
+    private void commit(List<Ship> chunk, long[] chunkLines, ShipImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        ShipBulkResult bulk = shipService.createShips(chunk);
+        for (ShipBulkResult.Item item : bulk.getItems()) {
+            if (item.getError() != null) {
+                result.addRejected(chunkLines[item.getIndex()], item.getError());
+            }
+        }
+        result.addCreated(bulk.getCreated());
+        chunk.clear();
+        LOG.info("Ship import progress: {} records, {} created, {} rejected",
+                result.getProcessed(), result.getCreated(), result.getRejected());
+    }
+
+    private static final int LINE = 0;
+    private static final int END = 1;
+    private static final int TOO_LONG = 2;
+
+    /**
+     * Читает строку в line без перевода строки. Строка длиннее MAX_LINE_LENGTH пропускается до конца
+     * @return LINE, TOO_LONG или END, если поток закончился и строка пустая
+     */
+    private static int readLine(Reader reader, StringBuilder line) throws IOException {
+        line.setLength(0);
+        boolean tooLong = false;
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (tooLong) {
+                continue;
+            }
+            if (line.length() == MAX_LINE_LENGTH) {
+                tooLong = true;
+                line.setLength(0);
+                continue;
+            }
+            line.append((char) c);
+        }
+        if (c == -1 && line.length() == 0 && !tooLong) {
+            return END;
+        }
+        if (line.length() > 0 && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+        return tooLong ? TOO_LONG : LINE;
+    }
+
+    private static Map<String, Integer> parseCsvHeader(CharSequence line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        return columns;
+    }
+
+    private static Ship parseCsv(CharSequence line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        Ship ship = new Ship();
+        ship.setName(value(values, columns, "name"));
+        ship.setPlanet(value(values, columns, "planet"));
+        String shipType = value(values, columns, "shipType");
+        ship.setShipType(shipType == null ? null : ShipType.valueOf(shipType.trim()));
+        String prodDate = value(values, columns, "prodDate");
+        ship.setProdDate(prodDate == null ? null : parseDate(prodDate.trim()));
+        String isUsed = value(values, columns, "isUsed");
+        ship.setUsed(isUsed == null ? null : Boolean.valueOf(isUsed.trim()));
+        String speed = value(values, columns, "speed");
+        ship.setSpeed(speed == null ? null : Double.valueOf(speed.trim()));
+        String crewSize = value(values, columns, "crewSize");
+        ship.setCrewSize(crewSize == null ? null : Integer.valueOf(crewSize.trim()));
+        return ship;
+    }
+
+    /**
+     * Значение колонки или null, если колонки нет или значение пустое
+     */
+    private static String value(List<String> values, Map<String, Integer> columns, String name) {
+        Integer column = columns.get(name);
+        if (column == null || column >= values.size() || values.get(column).isEmpty()) {
+            return null;
+        }
+        return values.get(column);
+    }
+
+    private static Date parseDate(String value) {
+        if (value.chars().allMatch(Character::isDigit)) {
+            return new Date(Long.parseLong(value));
+        }
+        try {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+            format.setLenient(false);
+            return format.parse(value);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("prodDate " + value);
+        }
+    }
+
+    /**
+     * Значения строки CSV, разделенные запятыми. В кавычках запятая - часть значения, "" - кавычка
+     */
+    private static List<String> splitCsv(CharSequence line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Незакрытая кавычка");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,282 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipSpecifications;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Параметры поиска кораблей. Создается один раз на запрос.
+ * Заданные (не null) критерии при создании собираются в один предикат, который проверяет
+ * корабль за один проход без промежуточных коллекций. Для поиска в БД есть {@link #toSpecification()}.
+ * Поиск по name и planet - по частичному соответствию без учета регистра,
+ * after и before - строгие границы даты выпуска, остальные границы включительные.
+ * Пустые name и planet (например, ?name=) считаются незаданными: подстроке "" соответствует любой корабль.
+ */
+public final class ShipQuery implements Predicate<Ship> {
+
+    private static final ShipQuery ALL = new ShipQuery(null, null, null, null, null, null,
+            null, null, null, null, null, null);
+
+    private final String name;
+    private final String planet;
+    private final ShipType shipType;
+    private final Long after;
+    private final Long before;
+    private final Boolean isUsed;
+    private final Double minSpeed;
+    private final Double maxSpeed;
+    private final Integer minCrewSize;
+    private final Integer maxCrewSize;
+    private final Double minRating;
+    private final Double maxRating;
+
+    private final String nameTerm; //name в нижнем регистре
+    private final String planetTerm; //planet в нижнем регистре
+    private final Predicate<Ship>[] criteria; //только заданные критерии
+
+    public ShipQuery(String name,
+                     String planet,
+                     ShipType shipType,
+                     Long after,
+                     Long before,
+                     Boolean isUsed,
+                     Double minSpeed,
+                     Double maxSpeed,
+                     Integer minCrewSize,
+                     Integer maxCrewSize,
+                     Double minRating,
+                     Double maxRating) {
+        this.name = emptyToNull(name);
+        this.planet = emptyToNull(planet);
+        this.shipType = shipType;
+        this.after = after;
+        this.before = before;
+        this.isUsed = isUsed;
+        this.minSpeed = minSpeed;
+        this.maxSpeed = maxSpeed;
+        this.minCrewSize = minCrewSize;
+        this.maxCrewSize = maxCrewSize;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+        this.nameTerm = toTerm(this.name);
+        this.planetTerm = toTerm(this.planet);
+        this.criteria = compile();
+    }
+
+    /**
+     * Запрос без фильтров
+     */
+    public static ShipQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Строка в нижнем регистре для поиска подстроки. Locale.ROOT, чтобы результат не зависел от локали сервера
+     */
+    public static String toTerm(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Проверяет все заданные критерии за один проход
+     */
+    @Override
+    public boolean test(Ship ship) {
+        for (Predicate<Ship> criterion : criteria) {
+            if (!criterion.test(ship)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Те же критерии в виде условия WHERE
+     */
+    public Specification<Ship> toSpecification() {
+        return ShipSpecifications.filter(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+
+    /**
+     * true, если не задан ни один критерий
+     */
+    public boolean isEmpty() {
+        return criteria.length == 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate<Ship>[] compile() {
+        List<Predicate<Ship>> compiled = new ArrayList<>();
+        //Значения распаковываются один раз, а не на каждый корабль
+        if (nameTerm != null) {
+            compiled.add(ship -> containsIgnoreCase(ship.getName(), nameTerm));
+        }
+        if (planetTerm != null) {
+            compiled.add(ship -> containsIgnoreCase(ship.getPlanet(), planetTerm));
+        }
+        if (shipType != null) {
+            compiled.add(ship -> ship.getShipType() == shipType);
+        }
+        if (after != null) {
+            long afterTime = after;
+            compiled.add(ship -> ship.getProdDate() != null && ship.getProdDate().getTime() > afterTime);
+        }
+        if (before != null) {
+            long beforeTime = before;
+            compiled.add(ship -> ship.getProdDate() != null && ship.getProdDate().getTime() < beforeTime);
+        }
+        if (isUsed != null) {
+            compiled.add(ship -> isUsed.equals(ship.getUsed()));
+        }
+        if (minSpeed != null) {
+            double min = minSpeed;
+            compiled.add(ship -> ship.getSpeed() != null && ship.getSpeed() >= min);
+        }
+        if (maxSpeed != null) {
+            double max = maxSpeed;
+            compiled.add(ship -> ship.getSpeed() != null && ship.getSpeed() <= max);
+        }
+        if (minCrewSize != null) {
+            int min = minCrewSize;
+            compiled.add(ship -> ship.getCrewSize() != null && ship.getCrewSize() >= min);
+        }
+        if (maxCrewSize != null) {
+            int max = maxCrewSize;
+            compiled.add(ship -> ship.getCrewSize() != null && ship.getCrewSize() <= max);
+        }
+        if (minRating != null) {
+            double min = minRating;
+            compiled.add(ship -> ship.getRating() != null && ship.getRating() >= min);
+        }
+        if (maxRating != null) {
+            double max = maxRating;
+            compiled.add(ship -> ship.getRating() != null && ship.getRating() <= max);
+        }
+        return compiled.toArray(new Predicate[0]);
+    }
+
+    /**
+     * Поиск подстроки без учета регистра по тому же правилу toTerm, что у индекса кораблей и условия LIKE:
+     * посимвольное сравнение regionMatches для некоторых букв дает другой результат, чем toLowerCase
+     */
+    private static boolean containsIgnoreCase(String text, String term) {
+        return text != null && toTerm(text).contains(term);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * name в нижнем регистре
+     */
+    public String getNameTerm() {
+        return nameTerm;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    /**
+     * planet в нижнем регистре
+     */
+    public String getPlanetTerm() {
+        return planetTerm;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public Boolean getUsed() {
+        return isUsed;
+    }
+
+    public Double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public Double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public Integer getMinCrewSize() {
+        return minCrewSize;
+    }
+
+    public Integer getMaxCrewSize() {
+        return maxCrewSize;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ShipQuery that = (ShipQuery) o;
+        return Objects.equals(nameTerm, that.nameTerm) &&
+                Objects.equals(planetTerm, that.planetTerm) &&
+                shipType == that.shipType &&
+                Objects.equals(after, that.after) &&
+                Objects.equals(before, that.before) &&
+                Objects.equals(isUsed, that.isUsed) &&
+                Objects.equals(minSpeed, that.minSpeed) &&
+                Objects.equals(maxSpeed, that.maxSpeed) &&
+                Objects.equals(minCrewSize, that.minCrewSize) &&
+                Objects.equals(maxCrewSize, that.maxCrewSize) &&
+                Objects.equals(minRating, that.minRating) &&
+                Objects.equals(maxRating, that.maxRating);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nameTerm, planetTerm, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+
+    @Override
+    public String toString() {
+        return "ShipQuery{" +
+                "name='" + name + '\'' +
+                ", planet='" + planet + '\'' +
+                ", shipType=" + shipType +
+                ", after=" + after +
+                ", before=" + before +
+                ", isUsed=" + isUsed +
+                ", minSpeed=" + minSpeed +
+                ", maxSpeed=" + maxSpeed +
+                ", minCrewSize=" + minCrewSize +
+                ", maxCrewSize=" + maxCrewSize +
+                ", minRating=" + minRating +
+                ", maxRating=" + maxRating +
+                '}';
+    }
+}
@@ -0,0 +1,290 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов поиска кораблей. Ключ - нормализованный {@link ShipQuery}, вид запроса, order, номер
+ * и размер страницы. Хранит не больше ship.cache.size записей и вытесняет давно не использованные (LRU).
+ * При изменении корабля удаляются только записи, под запрос которых корабль подходил до или после изменения:
+ * на остальные результаты изменение повлиять не может.
+ * Включается свойством ship.cache.enabled.
+ * Записи относятся к одной версии каталога (ship_catalog). Изменение этого экземпляра приложения переводит
+ * кэш на следующую версию, удаляя только затронутые записи. Если при чтении версия в БД другая (каталог
+ * изменил другой экземпляр или реплика еще не получила изменение), кэш очищается целиком.
+ * Списки кораблей хранятся неизменяемыми копиями, чтобы вызывающий код не мог изменить общий результат.
+ */
+@Component
+public class ShipQueryCache {
+
+    /**
+     * Вид запроса, результат которого хранится в кэше
+     */
+    public enum Kind {
+        COUNT, PAGE, SEARCH
+    }
+
+    //Версия каталога неизвестна: кэш пуст
+    private static final long UNKNOWN_VERSION = Long.MIN_VALUE;
+
+    private final Object lock = new Object();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+
+    private boolean enabled;
+    private int maxSize;
+    private LinkedHashMap<Key, Object> entries; //Неизменяемые результаты запросов
+    //Версия каталога, которой соответствуют записи. Результат, посчитанный для другой версии, в кэш не попадает
+    private long catalogVersion = UNKNOWN_VERSION;
+
+    public ShipQueryCache() {
+
+    }
+
+    @Autowired
+    public ShipQueryCache(@Value("${ship.cache.enabled:false}") boolean enabled,
+                          @Value("${ship.cache.size:1000}") int maxSize) {
+        this.enabled = enabled && maxSize > 0;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() > ShipQueryCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Результат запроса из кэша или, если его там нет, посчитанный loader.
+     * catalogVersion - версия каталога, прочитанная в той же транзакции, что и данные loader
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Kind kind, ShipQuery query, ShipOrder order, Integer pageNumber, Integer pageSize,
+                     long catalogVersion, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(kind, query, order, pageNumber, pageSize);
+        synchronized (lock) {
+            if (this.catalogVersion != catalogVersion) {
+                reset(catalogVersion);
+            }
+            Object cached = entries.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return (T) cached;
+            }
+        }
+        misses.incrementAndGet();
+
+        T value = freeze(loader.get());
+        synchronized (lock) {
+            //Пока считали, кэш мог перейти на другую версию
+            if (this.catalogVersion == catalogVersion && value != null) {
+                entries.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Удаляет все записи и переводит кэш на версию catalogVersion
+     */
+    private void reset(long catalogVersion) {
+        if (!entries.isEmpty()) {
+            resets.incrementAndGet();
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+        }
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Переводит кэш на версию catalogVersion после изменения этим экземпляром.
+     * true, если изменение следует сразу за версией кэша и достаточно удалить затронутые им записи.
+     * Если версия кэша не меньше, записи прочитаны уже после изменения; если пропущена транзакция
+     * другого экземпляра, кэш очищается целиком
+     */
+    private boolean advance(long catalogVersion) {
+        if (catalogVersion <= this.catalogVersion) {
+            return false;
+        }
+        if (catalogVersion != this.catalogVersion + 1) {
+            reset(catalogVersion);
+            return false;
+        }
+        this.catalogVersion = catalogVersion;
+        return true;
+    }
+
+    /**
+     * Неизменяемая копия списка или страницы кораблей; остальные значения (количество) и так неизменяемые
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T freeze(T value) {
+        if (value instanceof List) {
+            return (T) copyShips((List<Ship>) value);
+        }
+        if (value instanceof Page) {
+            Page<Ship> page = (Page<Ship>) value;
+            return (T) new PageImpl<>(copyShips(page.getContent()), page.getPageable(), page.getTotalElements());
+        }
+        return value;
+    }
+
+    private static List<Ship> copyShips(List<Ship> ships) {
+        List<Ship> copies = new ArrayList<>(ships.size());
+        for (Ship ship : ships) {
+            copies.add(ship.copy());
+        }
+        return Collections.unmodifiableList(copies);
+    }
+
+    /**
+     * Удаляет результаты, на которые влияет изменение корабля.
+     * before - состояние до изменения (null для нового корабля), after - после (null для удаленного),
+     * catalogVersion - версия каталога после коммита изменения
+     */
+    public void invalidate(Ship before, Ship after, long catalogVersion) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            if (!advance(catalogVersion)) {
+                return;
+            }
+            Iterator<Key> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                ShipQuery query = keys.next().query;
+                if ((before != null && query.test(before)) || (after != null && query.test(after))) {
+                    keys.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Удаляет результаты, под запрос которых подходит хотя бы один из новых кораблей created
+     */
+    public void invalidate(Collection<Ship> created, long catalogVersion) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            if (!advance(catalogVersion)) {
+                return;
+            }
+            Iterator<Key> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                ShipQuery query = keys.next().query;
+                for (Ship ship : created) {
+                    if (query.test(ship)) {
+                        keys.remove();
+                        invalidations.incrementAndGet();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Удаляет все результаты. Для изменений, прежнее состояние которых неизвестно
+     */
+    public void invalidateAll(long catalogVersion) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            if (advance(catalogVersion)) {
+                invalidations.addAndGet(entries.size());
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * Счетчики попаданий, промахов, вытеснений, инвалидаций и полных очисток из-за смены версии каталога,
+     * текущий и наибольший размер
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        metrics.put("enabled", enabled);
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRatio", hitCount + missCount == 0 ? 0. : (double) hitCount / (hitCount + missCount));
+        metrics.put("evictions", evictions.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("resets", resets.get());
+        synchronized (lock) {
+            metrics.put("size", entries == null ? 0 : entries.size());
+        }
+        metrics.put("maxSize", maxSize);
+        return metrics;
+    }
+
+    private static final class Key {
+
+        private final Kind kind;
+        private final ShipQuery query;
+        private final ShipOrder order;
+        private final Integer pageNumber;
+        private final Integer pageSize;
+
+        Key(Kind kind, ShipQuery query, ShipOrder order, Integer pageNumber, Integer pageSize) {
+            this.kind = kind;
+            this.query = query;
+            //Без order и без сортировки по id результат один и тот же
+            this.order = order == null ? ShipOrder.ID : order;
+            this.pageNumber = pageNumber;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return kind == key.kind &&
+                    order == key.order &&
+                    Objects.equals(query, key.query) &&
+                    Objects.equals(pageNumber, key.pageNumber) &&
+                    Objects.equals(pageSize, key.pageSize);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, query, order, pageNumber, pageSize);
+        }
+    }
+}
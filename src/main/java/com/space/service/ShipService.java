@@ -2,17 +2,43 @@ package com.space.service;
 
 import com.space.controller.ShipOrder;
 import com.space.model.Ship;
-import com.space.model.ShipType;
+import org.springframework.data.domain.Page;
 
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ShipService {
 
+    /**
+     * Количество кораблей на странице, если pageSize не задан
+     */
+    int DEFAULT_PAGE_SIZE = 3;
+
+    /**
+     * Наибольшее количество кораблей в одном запросе массового создания
+     */
+    int MAX_BULK_SIZE = 10000;
+
   //  void create(Ship ship);
     Ship createShip(Ship ship);
 
-    Ship updateShip(Ship oldShip, Ship newShip) throws IllegalArgumentException;
+    /**
+     * Создает корабли, прошедшие те же проверки, что и в createShip, пакетными INSERT.
+     * Корабли с ошибками пропускаются, причина возвращается в результате
+     * @param ships не больше MAX_BULK_SIZE кораблей
+     * @return результат по каждому кораблю
+     * @throws IllegalArgumentException если кораблей больше MAX_BULK_SIZE
+     */
+    ShipBulkResult createShips(List<Ship> ships) throws IllegalArgumentException;
+
+    /**
+     * Изменяет корабль id: загружает его в той же транзакции, с основной БД, и обновляет не null поля newShip
+     * @return измененный корабль или null, если корабля нет
+     * @throws IllegalArgumentException если значения вне допустимых пределов
+     * @throws org.springframework.dao.OptimisticLockingFailureException если корабль изменен параллельно
+     */
+    Ship updateShip(Long id, Ship newShip) throws IllegalArgumentException;
 
     /**
      * Сохраняет корабль
@@ -23,42 +49,105 @@ public interface ShipService {
 
     Ship getShipById(Long id);
 
+    /**
+     * Версия корабля без загрузки самого корабля
+     * @return версия или null, если корабля нет
+     */
+    Long getShipVersion(Long id);
+
+    /**
+     * Версия каталога кораблей из таблицы ship_catalog. Каждая транзакция, изменяющая корабли, увеличивает ее
+     * перед коммитом, на любом экземпляре приложения, поэтому при той же версии результаты поиска
+     * и количество кораблей те же. Изменения таблицы ship в обход сервиса должны увеличивать ее так же
+     * @return непрозрачная строка версии
+     */
+    String getCatalogVersion();
+
+    /**
+     * Возвращает количество кораблей, подходящих под фильтры, одним запросом SELECT COUNT(*)
+     * @return количество кораблей
+     */
+    long countShips(ShipQuery query);
+
 
     /**
-     * Возвращает список всех имеющихся кораблей
-     * @return список клиентов
+     * Возвращает одну страницу кораблей, отфильтрованных, отсортированных и нарезанных на стороне БД
+     * @param order поле сортировки, по умолчанию ID
+     * @param pageNumber номер страницы, нумерация с нуля, по умолчанию 0
+     * @param pageSize количество кораблей на странице, по умолчанию 3
+     * @return корабли страницы
      */
-    List<Ship> getAllShips(
-            String name,
-            String planet,
-            ShipType shipType,
-            Long after,
-            Long before,
-            Boolean isUsed,
-            Double minSpeed,
-            Double maxSpeed,
-            Integer minCrewSize,
-            Integer maxCrewSize,
-            Double minRating,
-            Double maxRating
+    List<Ship> getShips(
+            ShipQuery query,
+            ShipOrder order,
+            Integer pageNumber,
+            Integer pageSize
     );
 
 
     /**
-     * Удаление
-     * @param ship
+     * Возвращает до pageSize кораблей, следующих за позицией cursor в порядке cursor.getOrder().
+     * Запрос начинается с поиска по индексу от последнего выданного корабля, без OFFSET.
+     * @param cursor позиция, после которой начинается страница
+     * @param pageSize количество кораблей на странице, по умолчанию 3
+     * @return корабли страницы
      */
-    void deleteShip(Ship ship);
+    List<Ship> getShipsAfter(
+            ShipQuery query,
+            ShipCursor cursor,
+            Integer pageSize
+    );
+
 
     /**
-     * Сортировать корабли
-     * @param ships
-     * @param order
-     * @return
+     * Возвращает страницу кораблей вместе с общим количеством подходящих кораблей.
+     * Страница и количество вычисляются по одному и тому же условию поиска.
+     * @param order поле сортировки, по умолчанию ID
+     * @param pageNumber номер страницы, нумерация с нуля, по умолчанию 0
+     * @param pageSize количество кораблей на странице, по умолчанию 3
+     * @return страница кораблей
+     */
+    Page<Ship> searchShips(
+            ShipQuery query,
+            ShipOrder order,
+            Integer pageNumber,
+            Integer pageSize
+    );
+
+
+    /**
+     * Передает все корабли, подходящие под запрос, в порядке id в consumer по одному,
+     * не загружая их в память целиком
+     * @param query параметры поиска
+     * @param consumer получатель кораблей
      */
-    List<Ship> sortShips(List<Ship> ships, ShipOrder order);
+    void exportShips(ShipQuery query, Consumer<Ship> consumer);
 
-    List<Ship> getPage(List<Ship> ships, Integer pageNumber, Integer pageSize);
+
+    /**
+     * Удаление корабля id, загруженного в той же транзакции с основной БД
+     * @return false, если корабля нет
+     * @throws org.springframework.dao.OptimisticLockingFailureException если корабль изменен параллельно
+     */
+    boolean deleteShip(Long id);
+
+    /**
+     * Изменяет все корабли, подходящие под запрос, одним UPDATE. Задаются не null поля values,
+     * кроме id и rating; rating пересчитывается, если меняются speed, prodDate или isUsed
+     * @param query непустой запрос
+     * @param values новые значения полей, проверяются по правилам updateShip
+     * @return количество измененных кораблей
+     * @throws IllegalArgumentException если запрос пустой, не задано ни одно поле или значение вне пределов
+     */
+    long updateShips(ShipQuery query, Ship values) throws IllegalArgumentException;
+
+    /**
+     * Удаляет все корабли, подходящие под запрос, одним DELETE
+     * @param query непустой запрос
+     * @return количество удаленных кораблей
+     * @throws IllegalArgumentException если запрос пустой
+     */
+    long deleteShips(ShipQuery query) throws IllegalArgumentException;
 
     boolean isShipValid(Ship ship);
 
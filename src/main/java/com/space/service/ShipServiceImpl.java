@@ -2,64 +2,158 @@ package com.space.service;
 
 import com.space.controller.ShipOrder;
 import com.space.model.Ship;
-import com.space.model.ShipType;
 import com.space.repository.ShipRepository;
+import com.space.repository.ShipSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import javax.transaction.Transactional;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
+/**
+ * Методы чтения выполняются в транзакциях только для чтения: Hibernate не хранит снимки загруженных
+ * кораблей и не проверяет их изменения перед коммитом, а запросы идут на реплику, если она задана
+ */
 @Service
 @Transactional
 public class ShipServiceImpl implements ShipService {
 
+    private static final int DEFAULT_PAGE_NUMBER = 0;
+
+    //findAllById разбивается на запросы с IN не длиннее этого
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    //Ресурс транзакции: версия каталога в ней будет увеличена перед коммитом, long[1] с новой версией
+    private static final Object CATALOG_VERSION_KEY = new Object();
+
     private ShipRepository shipRepository;
+    private ShipColumnIndex shipColumnIndex;
+    private ShipQueryCache shipQueryCache;
+    private ShipChangeFeed shipChangeFeed;
 
     public ShipServiceImpl() {
 
     }
 
     @Autowired
-    public ShipServiceImpl(ShipRepository shipRepository) {
+    public ShipServiceImpl(ShipRepository shipRepository, ShipColumnIndex shipColumnIndex,
+                           ShipQueryCache shipQueryCache, ShipChangeFeed shipChangeFeed) {
        // super();
         this.shipRepository = shipRepository;
+        this.shipColumnIndex = shipColumnIndex;
+        this.shipQueryCache = shipQueryCache;
+        this.shipChangeFeed = shipChangeFeed;
     }
 
     @Override
     public Ship createShip(Ship ship) {
 
+        prepareForCreate(ship);
+
+        Ship savedShip = shipRepository.saveAndFlush(ship);
+        Ship after = savedShip.copy();
+        afterCommit(catalogVersion -> {
+            shipColumnIndex.put(after, catalogVersion);
+            shipQueryCache.invalidate(null, after, catalogVersion);
+            shipChangeFeed.shipChanged(null, after);
+        });
+        return savedShip;
+    }
+
+
+    @Override
+    public ShipBulkResult createShips(List<Ship> ships) throws IllegalArgumentException {
+        if (ships.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("Больше " + MAX_BULK_SIZE + " кораблей в одном запросе");
+        }
+
+        ShipBulkResult result = new ShipBulkResult();
+        List<Ship> valid = new ArrayList<>(ships.size());
+        List<Integer> validIndexes = new ArrayList<>(ships.size());
+        for (int i = 0; i < ships.size(); i++) {
+            Ship ship = ships.get(i);
+            try {
+                if (ship == null) {
+                    throw new IllegalArgumentException("Корабль не задан");
+                }
+                prepareForCreate(ship);
+            } catch (IllegalArgumentException e) {
+                result.addRejected(i, e.getMessage());
+                continue;
+            }
+            ship.setId(null); //id назначает БД, а не клиент
+            valid.add(ship);
+            validIndexes.add(i);
+        }
+
+        shipRepository.persistAll(valid);
+        for (int i = 0; i < valid.size(); i++) {
+            result.addCreated(validIndexes.get(i), valid.get(i));
+        }
+        result.getItems().sort(Comparator.comparingInt(ShipBulkResult.Item::getIndex));
+
+        List<Ship> created = new ArrayList<>(valid.size());
+        for (Ship ship : valid) {
+            created.add(ship.copy());
+        }
+        afterCommit(catalogVersion -> {
+            for (Ship ship : created) {
+                shipColumnIndex.put(ship, catalogVersion);
+            }
+            shipQueryCache.invalidate(created, catalogVersion);
+            shipChangeFeed.shipsCreated(created);
+        });
+        return result;
+    }
+
+    /**
+     * Проверяет параметры нового корабля, по умолчанию считает его новым (isUsed = false) и вычисляет рейтинг
+     * @throws IllegalArgumentException если указаны не все параметры или они вне допустимых пределов
+     */
+    private void prepareForCreate(Ship ship) throws IllegalArgumentException {
         if (ship.getName() == null || ship.getPlanet() == null
                 || ship.getShipType() == null || ship.getProdDate() == null
                 || ship.getSpeed() == null || ship.getCrewSize() == null)
-            throw new IllegalArgumentException();//throw new BadRequestException("One of Ship params is null");
+            throw new IllegalArgumentException("Указаны не все параметры корабля");
 
-        //checkShipParams(ship);
-        if(!isShipValid(ship)) throw new IllegalArgumentException();
+        if(!isShipValid(ship)) throw new IllegalArgumentException("Параметры корабля вне допустимых пределов");
 
         if (ship.getUsed() == null)
             ship.setUsed(false);
 
         Double raiting = computeRating(ship);
         ship.setRating(raiting);
-
-        return shipRepository.saveAndFlush(ship);
     }
 
-
     /**
      * Обновлять нужно только те поля, которые не null.
      * Если корабль не найден в БД, необходимо ответить ошибкой с кодом 404.
      * Если значение id не валидное, необходимо ответить ошибкой с кодом 400.
-     * @param oldShip
+     * Корабль загружается в транзакции изменения, а не в транзакции чтения: та может идти
+     * на отстающую реплику, и сохранение устаревшей версии закончилось бы ошибкой оптимистической блокировки.
+     * @param id
      * @param newShip
      * @return
      * @throws IllegalArgumentException
      */
     @Override
-    public Ship updateShip(Ship oldShip, Ship newShip) throws IllegalArgumentException {
+    public Ship updateShip(Long id, Ship newShip) throws IllegalArgumentException {
+        Ship oldShip = shipRepository.findById(id).orElse(null);
+        if (oldShip == null) {
+            return null;
+        }
 
         boolean changeRating = false;
+        Ship before = oldShip.copy();
 
         if (newShip.getName()!=null ) {
             if (isNameLengthValid(newShip.getName())) {
@@ -115,6 +209,12 @@ public class ShipServiceImpl implements ShipService {
             oldShip.setRating(computeRating(oldShip));//oldShip.getSpeed(), oldShip.getUsed(), oldShip.getProdDate()));
         }
         shipRepository.save(oldShip);
+        Ship after = oldShip.copy();
+        afterCommit(catalogVersion -> {
+            shipColumnIndex.put(after, catalogVersion);
+            shipQueryCache.invalidate(before, after, catalogVersion);
+            shipChangeFeed.shipChanged(before, after);
+        });
         return oldShip;
 
     }
@@ -122,164 +222,312 @@ public class ShipServiceImpl implements ShipService {
     @Override
     public Ship saveShip(Ship ship) {
         //тут мы сохраняем Ship, используя просто save() мы сохраняем запись;
+        boolean isNew = ship.getId() == null;
         Ship savedShip = shipRepository.save(ship);
+        Ship after = savedShip.copy();
+        afterCommit(catalogVersion -> {
+            shipColumnIndex.put(after, catalogVersion);
+            //Прежнее состояние существующего корабля неизвестно
+            if (isNew) {
+                shipQueryCache.invalidate(null, after, catalogVersion);
+                shipChangeFeed.shipChanged(null, after);
+            } else {
+                shipQueryCache.invalidateAll(catalogVersion);
+                shipChangeFeed.shipsChanged(1);
+            }
+        });
         return savedShip;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Ship getShipById(Long id) {
         //
         return shipRepository.findById(id).orElse(null);
     }
 
-    /**
-     * Поиск по полям name и planet происходить по частичному соответствию.
-     * Например, если в БД есть корабль с именем «Левиафан», а параметр name задан как «иа» -
-     * такой корабль должен отображаться в результатах (Левиафан).
-     * @param name
-     * @param planet
-     * @param shipType
-     * @param after
-     * @param before
-     * @param isUsed
-     * @param minSpeed
-     * @param maxSpeed
-     * @param minCrewSize
-     * @param maxCrewSize
-     * @param minRating
-     * @param maxRating
-     * @return
-     */
+    @Override
+    @Transactional(readOnly = true)
+    public long countShips(ShipQuery query)
+    {
+        long catalogVersion = catalogVersion();
+        return shipQueryCache.get(ShipQueryCache.Kind.COUNT, query, null, null, null, catalogVersion, () -> {
+            if (shipColumnIndex.isEnabled()) {
+                shipColumnIndex.sync(catalogVersion);
+                return (long) shipColumnIndex.count(query);
+            }
+            return shipRepository.count(query.toSpecification());
+        });
+    }
 
     @Override
-    public List<Ship> getAllShips(String name,
-                               String planet,
-                               ShipType shipType,
-                               Long after,
-                               Long before,
-                               Boolean isUsed,
-                               Double minSpeed,
-                               Double maxSpeed,
-                               Integer minCrewSize,
-                               Integer maxCrewSize,
-                               Double minRating,
-                               Double maxRating)
+    @Transactional(readOnly = true)
+    public List<Ship> getShips(ShipQuery query,
+                               ShipOrder order,
+                               Integer pageNumber,
+                               Integer pageSize)
     {
+        int page = pageNumber == null ? DEFAULT_PAGE_NUMBER : pageNumber;
+        int size = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+        if (size < 1) {
+            return new ArrayList<>();
+        }
+        Pageable pageable = PageRequest.of(page, size, toSort(order));
 
-        List<Ship> ships = shipRepository.findAll();
+        long catalogVersion = catalogVersion();
+        return shipQueryCache.get(ShipQueryCache.Kind.PAGE, query, order, page, size, catalogVersion, () -> {
+            if (shipColumnIndex.isEnabled()) {
+                shipColumnIndex.sync(catalogVersion);
+                return loadInOrder(shipColumnIndex.find(query, order, pageable.getOffset(), size).getIds());
+            }
+            return shipRepository.findSlice(query.toSpecification(), pageable);
+        });
+    }
 
-        if (name != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getName().toLowerCase()
-                    .contains(name.toLowerCase()))
-                    .collect(Collectors.toList());
+    @Override
+    @Transactional(readOnly = true)
+    public List<Ship> getShipsAfter(ShipQuery query,
+                                    ShipCursor cursor,
+                                    Integer pageSize)
+    {
+        int size = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+        if (size < 1) {
+            return new ArrayList<>();
         }
 
-        if (planet != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getPlanet().toLowerCase()
-                    .contains(planet.toLowerCase()))
-                    .collect(Collectors.toList());
+        Specification<Ship> spec = query.toSpecification();
+        if (!cursor.isStart()) {
+            Comparable<?> value = cursor.getOrder() == ShipOrder.DATE
+                    ? new Date((Long) cursor.getValue())
+                    : cursor.getValue();
+            spec = spec.and(ShipSpecifications.seek(cursor.getOrder().getFieldName(), value, cursor.getId()));
         }
+        return shipRepository.findSlice(spec, PageRequest.of(0, size, toSort(cursor.getOrder())));
+    }
 
-        if (shipType != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getShipType().equals(shipType))
-                    .collect(Collectors.toList());
-        }
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Ship> searchShips(ShipQuery query,
+                                  ShipOrder order,
+                                  Integer pageNumber,
+                                  Integer pageSize)
+    {
+        int page = pageNumber == null ? DEFAULT_PAGE_NUMBER : pageNumber;
+        int size = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+        long catalogVersion = catalogVersion();
+        return shipQueryCache.get(ShipQueryCache.Kind.SEARCH, query, order, page, size, catalogVersion,
+                () -> findPage(query, order, page, size, catalogVersion));
+    }
 
-        if (after != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getProdDate().after(new Date(after)))
-                    .collect(Collectors.toList());
+    private Page<Ship> findPage(ShipQuery query, ShipOrder order, int page, int size, long catalogVersion)
+    {
+        if (shipColumnIndex.isEnabled()) {
+            shipColumnIndex.sync(catalogVersion);
+            Pageable pageable = size < 1 ? Pageable.unpaged() : PageRequest.of(page, size, toSort(order));
+            ShipColumnIndex.Hits hits = shipColumnIndex.find(query, order,
+                    pageable.isPaged() ? pageable.getOffset() : 0, Math.max(size, 0));
+            return new PageImpl<>(loadInOrder(hits.getIds()), pageable, hits.getTotal());
         }
 
-        if (before != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getProdDate().before(new Date(before)))
-                    .collect(Collectors.toList());
+        Specification<Ship> spec = query.toSpecification();
+        if (size < 1) {
+            return new PageImpl<>(new ArrayList<>(), Pageable.unpaged(), shipRepository.count(spec));
         }
 
-        if (isUsed != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getUsed().equals(isUsed))
-                    .collect(Collectors.toList());
-        }
+        //Spring Data не выполняет COUNT, если количество можно вычислить по самой странице
+        return shipRepository.findAll(spec, PageRequest.of(page, size, toSort(order)));
+    }
 
-        if (minSpeed != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getSpeed() >= minSpeed)
-                    .collect(Collectors.toList());
+    /**
+     * Версия каталога, с которой кэш и индекс сверяют свое содержимое: каталог могли изменить в обход них,
+     * например другим экземпляром приложения. Читается в транзакции поиска, из той же БД, что и корабли.
+     * Если кэш и индекс выключены, версия не нужна и не читается
+     */
+    private long catalogVersion() {
+        if (!shipQueryCache.isEnabled() && !shipColumnIndex.isEnabled()) {
+            return 0;
         }
+        return shipRepository.findCatalogVersion();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportShips(ShipQuery query, Consumer<Ship> consumer) {
+        shipRepository.forEachMatching(query.toSpecification(), consumer);
+    }
 
-        if (maxSpeed != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getSpeed() <= maxSpeed)
-                    .collect(Collectors.toList());
+    /**
+     * Сортировка по полю order, при равенстве - по id, чтобы порядок страниц был однозначным
+     */
+    private Sort toSort(ShipOrder order) {
+        if (order == null || order == ShipOrder.ID) {
+            return Sort.by(ShipOrder.ID.getFieldName());
         }
+        return Sort.by(order.getFieldName()).and(Sort.by(ShipOrder.ID.getFieldName()));
+    }
 
-        if (minCrewSize != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getCrewSize() >= minCrewSize)
-                    .collect(Collectors.toList());
+    /**
+     * Загружает корабли по id из индекса и возвращает их в том же порядке
+     */
+    private List<Ship> loadInOrder(long[] ids) {
+        Map<Long, Ship> shipsById = new HashMap<>(ids.length * 2);
+        for (int from = 0; from < ids.length; from += LOAD_BATCH_SIZE) {
+            List<Long> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+            for (int i = from; i < Math.min(from + LOAD_BATCH_SIZE, ids.length); i++) {
+                batch.add(ids[i]);
+            }
+            for (Ship ship : shipRepository.findAllById(batch)) {
+                shipsById.put(ship.getId(), ship);
+            }
         }
 
-        if (maxCrewSize != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getCrewSize() <= maxCrewSize)
-                    .collect(Collectors.toList());
+        List<Ship> ships = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Ship ship = shipsById.get(id);
+            if (ship != null) {
+                ships.add(ship);
+            }
         }
+        return ships;
+    }
 
-        if (minRating != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getRating() >= minRating)
-                    .collect(Collectors.toList());
+    /**
+     * Выполняет action после коммита текущей транзакции, чтобы индекс не увидел откатившиеся изменения.
+     * Версия каталога увеличивается в той же транзакции, что и изменение, один раз на транзакцию;
+     * action получает новую версию
+     */
+    private void afterCommit(LongConsumer action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            shipRepository.incrementCatalogVersion();
+            action.accept(shipRepository.findCatalogVersion());
+            return;
         }
+        long[] catalogVersion = incrementCatalogVersionBeforeCommit();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.accept(catalogVersion[0]);
+            }
+        });
+    }
 
-        if (maxRating != null)
-        {
-            ships = ships.stream().filter(ship -> ship.getRating() <= maxRating)
-                    .collect(Collectors.toList());
+    /**
+     * Строка ship_catalog блокируется до конца транзакции, поэтому UPDATE откладывается до коммита:
+     * параллельные изменения ждут друг друга только на время самого коммита.
+     * Возвращает long[1], в который перед коммитом записывается новая версия
+     */
+    private long[] incrementCatalogVersionBeforeCommit() {
+        long[] catalogVersion = (long[]) TransactionSynchronizationManager.getResource(CATALOG_VERSION_KEY);
+        if (catalogVersion != null) {
+            return catalogVersion;
         }
+        long[] newVersion = new long[1];
+        TransactionSynchronizationManager.bindResource(CATALOG_VERSION_KEY, newVersion);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                shipRepository.incrementCatalogVersion();
+                newVersion[0] = shipRepository.findCatalogVersion();
+            }
 
-        return ships;
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CATALOG_VERSION_KEY);
+            }
+        });
+        return newVersion;
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public String getCatalogVersion() {
+        return String.valueOf(shipRepository.findCatalogVersion());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Long getShipVersion(Long id) {
+        return shipRepository.findVersionById(id);
+    }
 
     @Override
-    public void deleteShip(Ship ship) {
+    public boolean deleteShip(Long id) {
+        Ship ship = shipRepository.findById(id).orElse(null);
+        if (ship == null) {
+            return false;
+        }
         shipRepository.delete(ship);
-
+        Ship before = ship.copy();
+        afterCommit(catalogVersion -> {
+            shipColumnIndex.remove(before.getId(), catalogVersion);
+            shipQueryCache.invalidate(before, null, catalogVersion);
+            shipChangeFeed.shipChanged(before, null);
+        });
+        return true;
     }
-//сортировка по enum ShipOrder
     @Override
-    public List<Ship> sortShips(List<Ship> ships, ShipOrder order) {
-        if (order != null) {
-            ships.sort((ship1, ship2) -> {
-                switch (order) {
-                    case ID: return ship1.getId().compareTo(ship2.getId());
-                    case SPEED: return ship1.getSpeed().compareTo(ship2.getSpeed());
-                    case DATE: return ship1.getProdDate().compareTo(ship2.getProdDate());
-                    case RATING: return ship1.getRating().compareTo(ship2.getRating());
-                    default: return 0;
-                }
-            });
+    public long updateShips(ShipQuery query, Ship values) throws IllegalArgumentException {
+        if (query.isEmpty()) {
+            throw new IllegalArgumentException("Не задан ни один фильтр");
         }
-        return ships;
+        checkChanges(values);
+
+        Specification<Ship> spec = query.toSpecification();
+        //id выбираются до UPDATE: после него корабли могут уже не подходить под фильтры
+        List<Long> ids = shipColumnIndex.isEnabled() ? shipRepository.findIds(spec) : Collections.emptyList();
+        long count = shipRepository.updateMatching(spec, values);
+
+        List<Ship> updated = new ArrayList<>(ids.size());
+        for (Ship ship : loadInOrder(ids.stream().mapToLong(Long::longValue).toArray())) {
+            updated.add(ship.copy());
+        }
+        afterCommit(catalogVersion -> {
+            for (Ship ship : updated) {
+                shipColumnIndex.put(ship, catalogVersion);
+            }
+            //Прежние значения измененных кораблей неизвестны
+            shipQueryCache.invalidateAll(catalogVersion);
+            shipChangeFeed.shipsChanged(count);
+        });
+        return count;
     }
 
     @Override
-    public List<Ship> getPage(List<Ship> ships, Integer pageNumber, Integer pageSize) {
-        Integer page = pageNumber == null ? 0 : pageNumber;
-        Integer size = pageSize == null ? 3 : pageSize;
-        int first = page * size;
-        int last = first + size;
-        if (last > ships.size())
-        {
-            last = ships.size();
+    public long deleteShips(ShipQuery query) throws IllegalArgumentException {
+        if (query.isEmpty()) {
+            throw new IllegalArgumentException("Не задан ни один фильтр");
         }
-        return ships.subList(first, last);
+
+        Specification<Ship> spec = query.toSpecification();
+        List<Long> ids = shipColumnIndex.isEnabled() ? shipRepository.findIds(spec) : Collections.emptyList();
+        long count = shipRepository.deleteMatching(spec);
+
+        afterCommit(catalogVersion -> {
+            for (Long id : ids) {
+                shipColumnIndex.remove(id, catalogVersion);
+            }
+            shipQueryCache.invalidateAll(catalogVersion);
+            shipChangeFeed.shipsChanged(count);
+        });
+        return count;
+    }
+
+    /**
+     * Проверяет заданные (не null) значения полей по тем же правилам, что и updateShip
+     * @throws IllegalArgumentException если не задано ни одно поле или значение вне допустимых пределов
+     */
+    private void checkChanges(Ship values) throws IllegalArgumentException {
+        if (values.getName() == null && values.getPlanet() == null && values.getShipType() == null
+                && values.getProdDate() == null && values.getUsed() == null && values.getSpeed() == null
+                && values.getCrewSize() == null)
+            throw new IllegalArgumentException("Не задано ни одно поле");
+
+        if ((values.getName() != null && !isNameLengthValid(values.getName()))
+                || (values.getPlanet() != null && !isPlanetLengthValid(values.getPlanet()))
+                || (values.getProdDate() != null && !isDateValid(values.getProdDate()))
+                || (values.getSpeed() != null && !isSpeedValid(values.getSpeed()))
+                || (values.getCrewSize() != null && !isCrewSizeValid(values.getCrewSize())))
+            throw new IllegalArgumentException("Параметры корабля вне допустимых пределов");
     }
 
     @Override
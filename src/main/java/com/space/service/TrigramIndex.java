@@ -0,0 +1,156 @@
+package com.space.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Инвертированный индекс триграмм для поиска подстроки в одной текстовой колонке {@link ShipColumnIndex}.
+ * Для каждой триграммы (трех подряд идущих кодовых точек Unicode) хранится отсортированный список строк,
+ * в значении которых она встречается. Строки для подстроки из 3 и более символов - пересечение списков
+ * ее триграмм; это кандидаты, которые затем проверяются полным сравнением.
+ * Значения и подстроки передаются уже в нижнем регистре. Не потокобезопасен: вызывается под блокировкой индекса.
+ */
+final class TrigramIndex {
+
+    private static final int GRAM = 3;
+    private static final int BITS_PER_CODE_POINT = 21; //Character.MAX_CODE_POINT < 2^21
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * Добавляет строку row со значением text
+     */
+    void add(int row, String text) {
+        for (long gram : grams(text)) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(row);
+        }
+    }
+
+    /**
+     * Удаляет строку row, которая была добавлена со значением text
+     */
+    void remove(int row, String text) {
+        for (long gram : grams(text)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(row) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Строки, значения которых могут содержать term, по возрастанию номера.
+     * null, если term короче трех символов и индекс не может сузить поиск
+     */
+    int[] candidates(String term) {
+        long[] grams = grams(term);
+        if (grams.length == 0) {
+            return null;
+        }
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        //Пересечение начинается с самого короткого списка
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] rows = Arrays.copyOf(lists[0].rows, lists[0].size);
+        for (int i = 1; i < lists.length && rows.length > 0; i++) {
+            rows = intersect(rows, lists[i].rows, lists[i].size);
+        }
+        return rows;
+    }
+
+    /**
+     * Пересечение двух отсортированных списков строк
+     */
+    static int[] intersect(int[] a, int[] b, int bSize) {
+        int[] result = new int[Math.min(a.length, bSize)];
+        int found = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < bSize) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[found++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return found == result.length ? result : Arrays.copyOf(result, found);
+    }
+
+    /**
+     * Различные триграммы text. Кодовые точки, а не char, чтобы суррогатные пары не разрезались
+     */
+    private static long[] grams(String text) {
+        if (text == null) {
+            return new long[0];
+        }
+        int[] codePoints = text.codePoints().toArray();
+        if (codePoints.length < GRAM) {
+            return new long[0];
+        }
+        long[] grams = new long[codePoints.length - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) codePoints[i] << (2 * BITS_PER_CODE_POINT))
+                    | ((long) codePoints[i + 1] << BITS_PER_CODE_POINT)
+                    | codePoints[i + 2];
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    /**
+     * Отсортированный список номеров строк. Новые строки обычно добавляются в конец
+     */
+    private static final class Postings {
+
+        private int[] rows = new int[4];
+        private int size;
+
+        void add(int row) {
+            if (size > 0 && rows[size - 1] < row) {
+                append(row);
+                return;
+            }
+            int position = Arrays.binarySearch(rows, 0, size, row);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size << 1);
+            }
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+            rows[position] = row;
+            size++;
+        }
+
+        boolean remove(int row) {
+            int position = Arrays.binarySearch(rows, 0, size, row);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private void append(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size << 1);
+            }
+            rows[size++] = row;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+-- Исходная схема из init.sql. На существующей БД не выполняется: она помечается как версия 1 (baselineOnMigrate)
+CREATE TABLE IF NOT EXISTS ship
+(
+    id       BIGINT(20)  NOT NULL AUTO_INCREMENT,
+    name     VARCHAR(50) NULL,
+    planet   VARCHAR(50) NULL,
+    shipType VARCHAR(9)  NULL,
+    prodDate date        NULL,
+    isUsed   BIT(1)      NULL,
+    speed    DOUBLE      NULL,
+    crewSize INT(4)      NULL,
+    rating   DOUBLE      NULL,
+    PRIMARY KEY (id)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARACTER SET = utf8;
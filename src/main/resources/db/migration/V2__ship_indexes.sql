@@ -0,0 +1,9 @@
+-- Индексы для фильтров и сортировок поиска кораблей.
+-- Сортировка по полю ShipOrder идет с id при равенстве, поэтому id входит в индексы полей сортировки.
+-- Индексы продублированы в src/test/resources/test.sql
+CREATE INDEX ship_speed_id_idx ON ship (speed, id);
+CREATE INDEX ship_prodDate_id_idx ON ship (prodDate, id);
+CREATE INDEX ship_rating_id_idx ON ship (rating, id);
+CREATE INDEX ship_crewSize_idx ON ship (crewSize);
+CREATE INDEX ship_shipType_isUsed_idx ON ship (shipType, isUsed, id);
+CREATE INDEX ship_isUsed_id_idx ON ship (isUsed, id);
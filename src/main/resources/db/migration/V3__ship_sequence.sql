@@ -0,0 +1,11 @@
+-- Таблица, из которой генератор id кораблей выделяет блоки id (pooled-lo).
+-- Следующий блок начинается после наибольшего существующего id, поэтому прежние id остаются действительными
+CREATE TABLE ship_sequence
+(
+    next_val BIGINT NOT NULL
+)
+    ENGINE = InnoDB;
+
+INSERT INTO ship_sequence (next_val)
+SELECT COALESCE(MAX(id), 0) + 1
+FROM ship;
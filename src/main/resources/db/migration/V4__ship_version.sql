@@ -0,0 +1,4 @@
+-- Версия корабля для оптимистической блокировки и ETag; увеличивается при каждом изменении.
+-- Столбец продублирован в src/test/resources/test.sql
+ALTER TABLE ship
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,14 @@
+-- Версия каталога кораблей для ETag списков: общая для всех экземпляров приложения,
+-- увеличивается каждой транзакцией, изменяющей корабли. Изменения таблицы ship в обход приложения
+-- должны выполнять UPDATE ship_catalog SET version = version + 1 WHERE id = 1.
+-- Таблица продублирована в src/test/resources/test.sql
+CREATE TABLE ship_catalog
+(
+    id      INT    NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id)
+)
+    ENGINE = InnoDB;
+
+INSERT INTO ship_catalog (id, version)
+VALUES (1, 0);
@@ -1,7 +1,8 @@
 function loadContent(root, suffix, currentPage) {
 
-    let objects = JSON.parse(Get(root + "/rest/ships" + suffix).responseText);
-    let shipsCount = Get(root + "/rest/ships/count" + suffix).responseText;
+    let page = JSON.parse(Get(root + "/rest/ships/search" + suffix).responseText);
+    let objects = page.ships;
+    let shipsCount = page.count;
     document.getElementById("count").innerText = "Ships found: " + shipsCount;
     let table = document.getElementById("mainTable");
     table.innerHTML = "";
@@ -0,0 +1,72 @@
+package com.space.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectionPoolMetricsTest {
+
+    private ConnectionPoolMetrics metrics;
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+
+    @Before
+    public void setUp() {
+        metrics = new ConnectionPoolMetrics();
+        primary = pool("cosmoport");
+        replica = pool("cosmoport-replica");
+    }
+
+    @After
+    public void tearDown() {
+        primary.close();
+        replica.close();
+    }
+
+    //test1
+    @Test
+    public void metricsKeptForEachPoolTest() throws Exception {
+        try (Connection ignored = replica.getConnection()) {
+            try (Connection connection = primary.getConnection()) {
+                connection.createStatement().execute("SELECT 1");
+            }
+
+            Map<String, Object> pools = pools();
+            assertEquals("Показатели должны быть у обоих пулов.", 2, pools.size());
+            assertEquals(0, pool(pools, "cosmoport").get("active"));
+            assertEquals(1, pool(pools, "cosmoport-replica").get("active"));
+            assertTrue((Long) pool(pools, "cosmoport").get("acquired") >= 1);
+            assertTrue((Long) pool(pools, "cosmoport-replica").get("acquired") >= 1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> pools() {
+        Map<String, Object> all = metrics.getMetrics();
+        assertEquals(true, all.get("enabled"));
+        return (Map<String, Object>) all.get("pools");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> pool(Map<String, Object> pools, String name) {
+        return (Map<String, Object>) pools.get(name);
+    }
+
+    private HikariDataSource pool(String name) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        config.setMinimumIdle(1);
+        config.setMaximumPoolSize(2);
+        config.setMetricsTrackerFactory(metrics);
+        return new HikariDataSource(config);
+    }
+}
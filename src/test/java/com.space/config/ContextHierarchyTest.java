@@ -0,0 +1,65 @@
+package com.space.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.service.ShipImporter;
+import com.space.service.ShipService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Контексты собираются так же, как в MyWebAppInit: корневой из AppConfig и дочерний из WebConfig.
+ * Корневой контекст не должен зависеть от бинов дочернего
+ */
+public class ContextHierarchyTest {
+
+    private MockServletContext servletContext;
+    private AnnotationConfigWebApplicationContext root;
+    private AnnotationConfigWebApplicationContext servlet;
+
+    @Before
+    public void setUp() {
+        servletContext = new MockServletContext();
+        root = new AnnotationConfigWebApplicationContext();
+        root.setServletContext(servletContext);
+        root.getEnvironment().setActiveProfiles("dev");
+        root.register(AppConfig.class);
+    }
+
+    @After
+    public void tearDown() {
+        if (servlet != null) {
+            servlet.close();
+        }
+        root.close();
+    }
+
+    //test1
+    @Test
+    public void rootContextRefreshesOnItsOwnTest() {
+        root.refresh();
+
+        assertNotNull(root.getBean(ShipService.class));
+        assertNotNull(root.getBean(ShipImporter.class));
+        assertNotNull(root.getBean(ObjectMapper.class));
+    }
+
+    //test2
+    @Test
+    public void servletContextUsesRootObjectMapperTest() {
+        root.refresh();
+        servlet = new AnnotationConfigWebApplicationContext();
+        servlet.setParent(root);
+        servlet.setServletContext(servletContext);
+        servlet.register(WebConfig.class);
+        servlet.refresh();
+
+        assertSame("Контроллеры и сервисы используют разные ObjectMapper.",
+                root.getBean(ObjectMapper.class), servlet.getBean(ObjectMapper.class));
+    }
+}
@@ -0,0 +1,117 @@
+package com.space.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactory;
+    private EntityManager entityManager;
+    private TransactionTemplate jpaTransactionTemplate;
+
+    @Before
+    public void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        DataSource dataSource = new ReadWriteRoutingDataSource(primary, replica);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        //Как в AppConfig: JpaTransactionManager с HibernateJpaDialect берет соединение уже в doBegin,
+        //до того как признак readOnly транзакции становится известен
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setPackagesToScan("com.space.model");
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Properties properties = new Properties();
+        properties.setProperty(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect");
+        properties.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false");
+        entityManagerFactory.setJpaProperties(properties);
+        entityManagerFactory.afterPropertiesSet();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory.getObject());
+        jpaTransactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory.getObject()));
+    }
+
+    @After
+    public void tearDown() {
+        entityManagerFactory.destroy();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    //test1
+    @Test
+    public void readOnlyTransactionUsesReplicaTest() {
+        transactionTemplate.setReadOnly(true);
+        assertEquals("Транзакция только для чтения идет не на реплику.", "replica",
+                transactionTemplate.execute(status -> name()));
+    }
+
+    //test2
+    @Test
+    public void readWriteTransactionUsesPrimaryTest() {
+        assertEquals("Транзакция с изменениями идет не в основную БД.", "primary",
+                transactionTemplate.execute(status -> name()));
+    }
+
+    //test3
+    @Test
+    public void noTransactionUsesPrimaryTest() {
+        assertEquals("primary", name());
+    }
+
+    //test4
+    @Test
+    public void readOnlyJpaTransactionUsesReplicaTest() {
+        jpaTransactionTemplate.setReadOnly(true);
+        assertEquals("Транзакция JPA только для чтения идет не на реплику.", "replica",
+                jpaTransactionTemplate.execute(status -> jpaName()));
+    }
+
+    //test5
+    @Test
+    public void readWriteJpaTransactionUsesPrimaryTest() {
+        assertEquals("Транзакция JPA с изменениями идет не в основную БД.", "primary",
+                jpaTransactionTemplate.execute(status -> jpaName()));
+    }
+
+    private String jpaName() {
+        return (String) entityManager.createNativeQuery("SELECT name FROM db_name").getSingleResult();
+    }
+
+    private String name() {
+        return jdbcTemplate.queryForObject("SELECT name FROM db_name", String.class);
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(H2)
+                .build();
+        new JdbcTemplate(database).execute("CREATE TABLE db_name (name VARCHAR(10))");
+        new JdbcTemplate(database).update("INSERT INTO db_name VALUES (?)", name);
+        return database;
+    }
+}
@@ -0,0 +1,118 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.service.ShipQuery;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AsyncShipsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TestsHelper testsHelper = new TestsHelper();
+
+    //test1
+    @Test
+    public void getAllShipsAsyncTest() throws Exception {
+        MvcResult started = mockMvc.perform(get("/rest/async/ships?pageSize=100"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String content = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = mapper.readValue(content, new TypeReference<List<ShipInfoTest>>() {
+        });
+        assertEquals("Асинхронный запрос возвращает не все корабли.", testsHelper.getAllShips(), actual);
+    }
+
+    //test2
+    @Test
+    public void getShipIdZeroAsyncTest() throws Exception {
+        MvcResult started = mockMvc.perform(get("/rest/async/ships/0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void createShipAsyncTest() throws Exception {
+        MvcResult started = mockMvc.perform(post("/rest/async/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.IS_USED_TRUE_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+
+        MvcResult count = mockMvc.perform(get("/rest/async/ships/count"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String content = mockMvc.perform(asyncDispatch(count))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(testsHelper.getAllShips().size() + 1, Integer.parseInt(content));
+    }
+
+    //test4
+    @Test
+    public void fullQueueRejectsRequestTest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ShipController blocking = new ShipController() {
+            @Override
+            public Long getShipsCount(ShipQuery query) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0L;
+            }
+        };
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.initialize();
+        try {
+            AsyncShipController controller = new AsyncShipController(blocking, executor, executor, 1000, 1000);
+            DeferredResult<ResponseEntity<Long>> first = controller.getShipsCount(ShipQuery.all(), null);
+            started.await();
+
+            DeferredResult<ResponseEntity<Long>> second = controller.getShipsCount(ShipQuery.all(), null);
+            assertTrue("Запрос сверх очереди не отклонен сразу.", second.hasResult());
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseEntity<?>) second.getResult()).getStatusCode());
+
+            release.countDown();
+            while (!first.hasResult()) {
+                Thread.sleep(10);
+            }
+            assertEquals(HttpStatus.OK, ((ResponseEntity<?>) first.getResult()).getStatusCode());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
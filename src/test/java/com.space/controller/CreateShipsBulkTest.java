@@ -0,0 +1,65 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CreateShipsBulkTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TestsHelper testsHelper = new TestsHelper();
+
+    //test1
+    @Test
+    public void createShipsEmptyListTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/bulk")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test2
+    @Test
+    public void createShipsReportsInvalidItemsTest() throws Exception {
+        String content = "[" + TestsHelper.IS_USED_TRUE_JSON + "," + TestsHelper.NO_SPEED_JSON + ","
+                + TestsHelper.NO_IS_USED_JSON + "]";
+        String response = mockMvc.perform(post("/rest/ships/bulk")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(content))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode result = mapper.readTree(response);
+        assertEquals(2, result.get("created").asInt());
+        assertEquals(1, result.get("rejected").asInt());
+
+        JsonNode items = result.get("items");
+        //id выдаются по порядку из блока генератора, часть которого могла остаться от предыдущего теста
+        ShipInfoTest actual = mapper.treeToValue(items.get(0).get("ship"), ShipInfoTest.class);
+        assertTrue("id нового корабля совпадает с id корабля из test.sql.",
+                actual.id > testsHelper.getAllShips().size());
+        ShipInfoTest expected = new ShipInfoTest(actual.id, "123456789", "Earth", ShipType.MILITARY, 32998274577071L,
+                true, 0.8, 14, 6.4);
+        assertEquals("Возвращается не правильный созданный корабль при массовом создании.", expected, actual);
+        assertTrue("Нет причины отказа для корабля без speed.", items.get(1).get("ship").isNull()
+                && !items.get(1).get("error").isNull());
+        assertTrue(items.get(2).get("ship").get("id").asLong() > actual.id);
+
+        String count = mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(testsHelper.getAllShips().size() + 2, Integer.parseInt(count));
+    }
+}
@@ -0,0 +1,57 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportShipsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TestsHelper testsHelper = new TestsHelper();
+
+    //test1
+    @Test
+    public void exportAllShipsTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/ships/export"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertTrue(result.getResponse().getContentType().startsWith(ShipExportController.NDJSON_CONTENT_TYPE));
+        assertEquals("Выгрузка возвращает не все корабли.",
+                testsHelper.getAllShips(), parse(result.getResponse().getContentAsString()));
+    }
+
+    //test2
+    @Test
+    public void exportShipsWithFiltersShipTypeIsUsedTest() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/export?shipType=TRANSPORT&isUsed=false"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByIsUsed(false,
+                testsHelper.getShipInfosByShipType(ShipType.TRANSPORT, testsHelper.getAllShips()));
+        assertEquals("Выгрузка с фильтрами shipType и isUsed возвращает не правильный результат.",
+                expected, parse(content));
+    }
+
+    private List<ShipInfoTest> parse(String ndjson) throws Exception {
+        List<ShipInfoTest> ships = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            if (!line.isEmpty()) {
+                ships.add(mapper.readValue(line, ShipInfoTest.class));
+            }
+        }
+        return ships;
+    }
+}
@@ -0,0 +1,51 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetAllByCursorTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getAllByCursorOrderRatingVisitsEveryShipOnce() throws Exception {
+        List<ShipInfoTest> actual = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MockHttpServletResponse response = mockMvc.perform(get("/rest/ships?order=RATING&pageSize=4&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            actual.addAll(mapper.readValue(response.getContentAsString(), typeReference));
+            cursor = response.getHeader(ShipController.NEXT_CURSOR_HEADER);
+        }
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.RATING,
+                testsHelper.getShipInfosByOrder(ShipOrder.ID, testsHelper.getAllShips()));
+
+        assertEquals("Возвращается не правильный результат при обходе GET /rest/ships с параметрами order и cursor.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void getAllWithInvalidCursor() throws Exception {
+        mockMvc.perform(get("/rest/ships?cursor=not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+}
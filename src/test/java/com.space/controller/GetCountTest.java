@@ -1,13 +1,18 @@
 package com.space.controller;
 
 import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
 import com.space.model.ShipType;
+import com.space.service.ShipQuery;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.Locale;
+
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -152,4 +157,28 @@ public class GetCountTest extends AbstractTest {
 
         assertSame("Во звращается не правильный результат при запросе GET /rest/ships/count с параметрами isUsed, minSpeed и maxSpeed.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test9
+    @Test
+    public void getCountWithFilterNameIgnoresServerLocale() throws Exception {
+        Locale locale = Locale.getDefault();
+        //В турецкой локали "I".toLowerCase() - это "ı" без точки
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            MvcResult result = this.mockMvc.perform(get("/rest/ships/count?name=ORION")
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            int actual = Integer.parseInt(result.getResponse().getContentAsString());
+            int expected = testsHelper.getShipInfosByName("Orion", testsHelper.getAllShips()).size();
+
+            assertSame("Поиск по name зависит от локали сервера.", expected, actual);
+            Ship orion = new Ship();
+            orion.setName("Orion III");
+            assertTrue(new ShipQuery("ORION", null, null, null, null, null, null, null, null, null, null, null)
+                    .test(orion));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.GzipResponseFilter;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GzipResponseTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    @Before
+    @Override
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(context.getBean(GzipResponseFilter.class))
+                .build();
+    }
+
+    //test1
+    @Test
+    public void getAllShipsCompressedTest() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        byte[] compressed = response.getContentAsByteArray();
+        byte[] body = StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+        assertTrue("Сжатый ответ не меньше исходного.", compressed.length < body.length);
+
+        List<ShipInfoTest> actual = mapper.readValue(body, typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(0, 40, testsHelper.getAllShips());
+        assertEquals("Сжатый ответ GET /rest/ships отличается от несжатого.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void smallOrNotAcceptedResponseNotCompressedTest() throws Exception {
+        MockHttpServletResponse count = mockMvc.perform(get("/rest/ships/count")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertNull(count.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("40", count.getContentAsString());
+
+        MockHttpServletResponse all = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertNull(all.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(40, mapper.readValue(all.getContentAsString(), typeReference).size());
+    }
+
+    //test3
+    @Test
+    public void compressedResponseNotModifiedTest() throws Exception {
+        String etag = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue("ETag сжатого ответа должен быть слабым.", etag.startsWith("W/\""));
+
+        mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    //test4
+    @Test
+    public void eventStreamSentWithoutBufferingTest() throws Exception {
+        MvcResult events = mockMvc.perform(get("/rest/ships/events")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        try {
+            MockHttpServletResponse response = events.getResponse();
+            assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertTrue("Начало потока событий не отправлено клиенту сразу.", response.isCommitted());
+            assertTrue(response.getContentAsString(), response.getContentAsString().contains(":subscribed"));
+        } finally {
+            events.getRequest().getAsyncContext().complete();
+        }
+    }
+}
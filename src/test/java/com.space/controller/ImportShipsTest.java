@@ -0,0 +1,114 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ImportShipsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TestsHelper testsHelper = new TestsHelper();
+
+    //test1
+    @Test
+    public void importShipsNdjsonTest() throws Exception {
+        String content = TestsHelper.IS_USED_TRUE_JSON + "\n"
+                + TestsHelper.NO_SPEED_JSON + "\n"
+                + "{not a ship\n"
+                + "\n"
+                + TestsHelper.NO_IS_USED_JSON + "\n";
+        String response = mockMvc.perform(post("/rest/ships/import")
+                .contentType(ShipExportController.NDJSON_CONTENT_TYPE)
+                .content(content))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode result = mapper.readTree(response);
+        assertEquals(4, result.get("processed").asInt());
+        assertEquals(2, result.get("created").asInt());
+        assertEquals(2, result.get("rejected").asInt());
+        assertEquals("Не правильные номера строк отклоненных записей.",
+                new HashSet<>(Arrays.asList(2, 3)), rejectedLines(result));
+
+        //id выдаются по порядку строк; их значения зависят от блока id, оставшегося от предыдущих тестов
+        JsonNode created = findByName("123456789");
+        assertEquals(2, created.size());
+        ShipInfoTest actual = mapper.treeToValue(created.get(0), ShipInfoTest.class);
+        ShipInfoTest expected = new ShipInfoTest(actual.id, "123456789", "Earth", ShipType.MILITARY, 32998274577071L,
+                true, 0.8, 14, 6.4);
+        assertEquals("Загрузка создает не правильный корабль.", expected, actual);
+        assertEquals(testsHelper.getAllShips().size() + 2, count());
+    }
+
+    //test2
+    @Test
+    public void importShipsCsvTest() throws Exception {
+        String content = "name,planet,shipType,prodDate,isUsed,speed,crewSize\r\n"
+                + "\"Orion, II\",Mars,TRANSPORT,2995-06-01,false,0.5,100\r\n"
+                + "Nova,Venus,BATTLESHIP,2995-06-01,false,0.5,100\r\n"
+                + "Vega,Moon,MERCHANT,2700-01-01,false,0.5,100\r\n";
+        String response = mockMvc.perform(post("/rest/ships/import")
+                .contentType(new MediaType("text", "csv"))
+                .content(content))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode result = mapper.readTree(response);
+        assertEquals(3, result.get("processed").asInt());
+        assertEquals(1, result.get("created").asInt());
+        assertEquals(2, result.get("rejected").asInt());
+        assertEquals(new HashSet<>(Arrays.asList(3, 4)), rejectedLines(result));
+
+        JsonNode found = findByName("Orion, II");
+        assertEquals(1, found.size());
+        JsonNode created = found.get(0);
+        assertEquals("Orion, II", created.get("name").asText());
+        assertEquals(ShipType.TRANSPORT.name(), created.get("shipType").asText());
+        assertTrue(created.get("rating").asDouble() > 0);
+        assertEquals(testsHelper.getAllShips().size() + 1, count());
+    }
+
+    //test3
+    @Test
+    public void importShipsUnknownFormatTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/import?format=xml")
+                .content("<ship/>"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Set<Integer> rejectedLines(JsonNode result) {
+        Set<Integer> lines = new HashSet<>();
+        for (JsonNode rejection : result.get("rejectedSamples")) {
+            lines.add(rejection.get("line").asInt());
+        }
+        return lines;
+    }
+
+    private JsonNode findByName(String name) throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/ships")
+                .param("name", name)
+                .param("order", ShipOrder.ID.name()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private int count() throws Exception {
+        return Integer.parseInt(mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,34 @@
+package com.space.controller;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MetricsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void getCacheMetrics() throws Exception {
+        String content = this.mockMvc.perform(get("/rest/metrics/cache")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("Нет счетчиков попаданий и промахов в GET /rest/metrics/cache.",
+                content.contains("\"hits\"") && content.contains("\"misses\""));
+    }
+
+    //test2
+    @Test
+    public void getPoolMetricsWithoutPool() throws Exception {
+        String content = this.mockMvc.perform(get("/rest/metrics/pool")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("Во встроенной БД профиля dev пула соединений нет.", content.contains("\"enabled\":false"));
+    }
+}
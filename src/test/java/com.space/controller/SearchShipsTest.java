@@ -0,0 +1,70 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SearchShipsTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void searchWithoutFiltersReturnFirstPageAndCount() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships/search")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        JsonNode actual = readPage(resultActions.andReturn());
+        List<ShipInfoTest> allShips = testsHelper.getAllShips();
+
+        assertEquals("Возвращается не правильная страница при запросе GET /rest/ships/search.",
+                testsHelper.getShipInfosByPage(0, 3, allShips),
+                mapper.convertValue(actual.get("ships"), typeReference));
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/ships/search.",
+                allShips.size(), actual.get("count").asInt());
+        assertEquals("Возвращается не правильное количество страниц при запросе GET /rest/ships/search.",
+                (allShips.size() + 2) / 3, actual.get("pagesCount").asInt());
+    }
+
+    //test2
+    @Test
+    public void searchWithFiltersShipTypeOrderPageNumberPageSize() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships/search?shipType=TRANSPORT&order=SPEED&pageNumber=1&pageSize=2")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        JsonNode actual = readPage(resultActions.andReturn());
+        List<ShipInfoTest> filtered = testsHelper.getShipInfosByShipType(ShipType.TRANSPORT, testsHelper.getAllShips());
+
+        assertEquals("Возвращается не правильная страница при запросе GET /rest/ships/search с параметрами shipType, order, pageNumber и pageSize.",
+                testsHelper.getShipInfosByPage(1, 2, testsHelper.getShipInfosByOrder(ShipOrder.SPEED, filtered)),
+                mapper.convertValue(actual.get("ships"), typeReference));
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/ships/search с параметрами shipType, order, pageNumber и pageSize.",
+                filtered.size(), actual.get("count").asInt());
+        assertEquals("Возвращается не правильный номер страницы при запросе GET /rest/ships/search.",
+                1, actual.get("pageNumber").asInt());
+        assertEquals("Возвращается не правильный размер страницы при запросе GET /rest/ships/search.",
+                2, actual.get("pageSize").asInt());
+    }
+
+    private JsonNode readPage(MvcResult result) throws Exception {
+        return mapper.readTree(result.getResponse().getContentAsString());
+    }
+}
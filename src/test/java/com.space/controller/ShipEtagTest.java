@@ -0,0 +1,106 @@
+package com.space.controller;
+
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipEtagTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void getAllShipsNotModifiedUntilChangeTest() throws Exception {
+        String etag = etag("/rest/ships?shipType=MILITARY");
+
+        String content = mockMvc.perform(get("/rest/ships?shipType=MILITARY")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Ответ 304 не должен содержать тела.", content.isEmpty());
+
+        mockMvc.perform(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/ships?shipType=MILITARY")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    //test2
+    @Test
+    public void etagDependsOnParametersTest() throws Exception {
+        String military = etag("/rest/ships/count?shipType=MILITARY");
+        String merchant = etag("/rest/ships/count?shipType=MERCHANT");
+        assertNotEquals(military, merchant);
+
+        mockMvc.perform(get("/rest/ships/count?shipType=MERCHANT")
+                .header(HttpHeaders.IF_NONE_MATCH, military))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/count?shipType=MERCHANT")
+                .header(HttpHeaders.IF_NONE_MATCH, merchant))
+                .andExpect(status().isNotModified());
+    }
+
+    //test3
+    @Test
+    public void getShipNotModifiedUntilUpdateTest() throws Exception {
+        String etag = etag("/rest/ships/3");
+
+        mockMvc.perform(get("/rest/ships/3")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/rest/ships/3")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Renamed\"}"))
+                .andExpect(status().isOk());
+
+        String updated = mockMvc.perform(get("/rest/ships/3")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals("ETag корабля не изменился после изменения корабля.", etag, updated);
+    }
+
+    //test4
+    @Test
+    public void getShipNotFoundTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/1000")
+                .header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test5
+    @Test
+    public void catalogVersionFromDatabaseTest() throws Exception {
+        String etag = etag("/rest/ships/count");
+
+        //Изменение на другом экземпляре приложения видно только через версию в БД
+        new JdbcTemplate(context.getBean(DataSource.class))
+                .update("UPDATE ship_catalog SET version = version + 1 WHERE id = 1");
+
+        mockMvc.perform(get("/rest/ships/count")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    private String etag(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(url + " не возвращает ETag.", etag);
+        return etag;
+    }
+}
@@ -0,0 +1,65 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipEventsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void subscriberReceivesMatchingChangesTest() throws Exception {
+        MvcResult events = mockMvc.perform(get("/rest/ships/events?isUsed=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        try {
+            //Под фильтр подходит только корабль из IS_USED_TRUE_JSON
+            long normal = create(TestsHelper.NORMAL_JSON);
+            long used = create(TestsHelper.IS_USED_TRUE_JSON);
+            mockMvc.perform(delete("/rest/ships/" + normal))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete("/rest/ships/" + used))
+                    .andExpect(status().isOk());
+
+            String content = awaitContent(events.getResponse(), "event:DELETED");
+            assertTrue(content, content.contains("event:CREATED\ndata:{\"sequence\":"));
+            assertTrue(content, content.contains("\"id\":" + used + ","));
+            assertFalse("Подписчик получил событие о корабле не под его фильтром.",
+                    content.contains("\"id\":" + normal + ","));
+        } finally {
+            events.getRequest().getAsyncContext().complete();
+        }
+    }
+
+    private long create(String json) throws Exception {
+        String ship = mockMvc.perform(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(json))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(ship).get("id").asLong();
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = response.getContentAsString();
+        }
+        return content;
+    }
+}
@@ -0,0 +1,114 @@
+package com.space.controller;
+
+import com.space.config.VirtualThreadTaskExecutor;
+import com.space.service.ShipQuery;
+import com.space.service.ShipService;
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Сравнение пропускной способности и задержек поиска кораблей в пуле платформенных потоков
+ * и в виртуальных потоках. Запускается только с -Dship.load-test=true, виртуальные потоки - на JDK 21+:
+ * mvn test -Pvirtual-threads -Dship.load-test=true -Dtest=ShipLoadComparisonTest
+ * Количество запросов и число одновременных клиентов - ship.load-test.requests и ship.load-test.concurrency.
+ * В профиле dev БД встроенная и без пула соединений, поэтому результат показывает только разницу
+ * в накладных расходах потоков; для сравнения с пулом соединений нужен запуск против MySQL
+ */
+public class ShipLoadComparisonTest extends AbstractTest {
+
+    private static final int PLATFORM_THREADS = 8;
+
+    @Autowired
+    private ShipService shipService;
+
+    //test1
+    @Test
+    public void compareThreadModesTest() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("ship.load-test"));
+        int requests = Integer.getInteger("ship.load-test.requests", 2000);
+        int concurrency = Integer.getInteger("ship.load-test.concurrency", 200);
+
+        ThreadPoolTaskExecutor platform = new ThreadPoolTaskExecutor();
+        platform.setThreadNamePrefix("load-platform-");
+        platform.setCorePoolSize(PLATFORM_THREADS);
+        platform.setMaxPoolSize(PLATFORM_THREADS);
+        platform.setQueueCapacity(concurrency);
+        platform.initialize();
+        try {
+            run("platform", platform, requests / 10, concurrency); //прогрев
+            report("platform", platform, requests, concurrency);
+        } finally {
+            platform.shutdown();
+        }
+
+        if (!VirtualThreadTaskExecutor.isSupported()) {
+            System.out.println("virtual: not supported by Java " + System.getProperty("java.version"));
+            return;
+        }
+        VirtualThreadTaskExecutor virtual = new VirtualThreadTaskExecutor("load-virtual-", concurrency);
+        try {
+            run("virtual", virtual, requests / 10, concurrency);
+            report("virtual", virtual, requests, concurrency);
+        } finally {
+            virtual.destroy();
+        }
+    }
+
+    private void report(String mode, AsyncTaskExecutor executor, int requests, int concurrency) throws Exception {
+        long start = System.nanoTime();
+        long[] latencies = run(mode, executor, requests, concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("%s: %d requests, %d clients, %.2f s, %.0f req/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                mode, requests, concurrency, seconds, requests / seconds,
+                toMillis(latencies[latencies.length / 2]),
+                toMillis(latencies[(int) (latencies.length * 0.99)]),
+                toMillis(latencies[latencies.length - 1]));
+    }
+
+    /**
+     * Выполняет requests запросов поиска, не больше concurrency одновременно
+     * @return задержки запросов от постановки в очередь до ответа, нс
+     */
+    private long[] run(String mode, AsyncTaskExecutor executor, int requests, int concurrency) throws Exception {
+        long[] latencies = new long[requests];
+        Semaphore clients = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < requests; i++) {
+            int request = i;
+            clients.acquire();
+            long submitted = System.nanoTime();
+            executor.submit(() -> {
+                try {
+                    shipService.searchShips(ShipQuery.all(), ShipOrder.SPEED, request % 10, 5);
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                } finally {
+                    latencies[request] = System.nanoTime() - submitted;
+                    clients.release();
+                    done.countDown();
+                }
+            });
+        }
+        done.await(5, TimeUnit.MINUTES);
+        assertEquals(mode + ": запросы завершились ошибкой", 0, failures.get());
+        return latencies;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,151 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class UpdateDeleteByFilterTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TestsHelper testsHelper = new TestsHelper();
+
+    //test1
+    @Test
+    public void updateShipsWithoutFiltersTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/update")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.5}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test2
+    @Test
+    public void updateShipsInvalidSpeedTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/update?shipType=MERCHANT")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":1.5}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void updateShipsSpeedRecomputesRatingTest() throws Exception {
+        List<ShipInfoTest> matching = testsHelper.getShipInfosByIsUsed(true,
+                testsHelper.getShipInfosByShipType(ShipType.MERCHANT, testsHelper.getAllShips()));
+
+        String count = mockMvc.perform(post("/rest/ships/update?shipType=MERCHANT&isUsed=true")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\":0.5}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(matching.size(), Integer.parseInt(count));
+
+        for (ShipInfoTest info : matching) {
+            ShipInfoTest actual = getShip(info.id);
+            assertEquals(0.5, actual.speed, 0.);
+            assertEquals("Рейтинг пересчитан не правильно для корабля " + info.id,
+                    rating(0.5, true, info.prodDate), actual.rating, 0.);
+        }
+    }
+
+    //test4
+    @Test
+    public void updateShipsIsUsedRecomputesRatingTest() throws Exception {
+        List<ShipInfoTest> matching = testsHelper.getShipInfosByPlanet("Saturn", testsHelper.getAllShips());
+
+        mockMvc.perform(post("/rest/ships/update?planet=Saturn")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"isUsed\":false,\"crewSize\":100}"))
+                .andExpect(status().isOk());
+
+        for (ShipInfoTest info : matching) {
+            ShipInfoTest actual = getShip(info.id);
+            assertEquals(false, actual.isUsed);
+            assertEquals(Integer.valueOf(100), actual.crewSize);
+            assertEquals("Рейтинг пересчитан не правильно для корабля " + info.id,
+                    rating(info.speed, false, info.prodDate), actual.rating, 0.);
+        }
+    }
+
+    //test5
+    @Test
+    public void deleteShipsByFilterTest() throws Exception {
+        mockMvc.perform(delete("/rest/ships")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+
+        int military = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips()).size();
+        String deleted = mockMvc.perform(delete("/rest/ships?shipType=MILITARY")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(military, Integer.parseInt(deleted));
+
+        String count = mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(testsHelper.getAllShips().size() - military, Integer.parseInt(count));
+    }
+
+    //test6
+    @Test
+    public void updateShipsEmptyNameOrPlanetTest() throws Exception {
+        for (String filter : new String[]{"name=", "planet=", "name=&planet="}) {
+            mockMvc.perform(post("/rest/ships/update?" + filter)
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .accept(MediaType.APPLICATION_JSON_UTF8)
+                    .content("{\"speed\":0.5}"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        for (ShipInfoTest info : testsHelper.getAllShips()) {
+            assertEquals("Пустой фильтр изменил корабль " + info.id, info, getShip(info.id));
+        }
+    }
+
+    //test7
+    @Test
+    public void deleteShipsEmptyNameOrPlanetTest() throws Exception {
+        for (String filter : new String[]{"name=", "planet=", "name=&planet="}) {
+            mockMvc.perform(delete("/rest/ships?" + filter)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isBadRequest());
+        }
+
+        String count = mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(testsHelper.getAllShips().size(), Integer.parseInt(count));
+    }
+
+    private ShipInfoTest getShip(Long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, ShipInfoTest.class);
+    }
+
+    private static double rating(double speed, boolean isUsed, long prodDate) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(prodDate);
+        double rating = 80 * speed * (isUsed ? 0.5 : 1) / (3019 - calendar.get(Calendar.YEAR) + 1);
+        return Math.round(rating * 100) / 100D;
+    }
+}
@@ -0,0 +1,130 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShipChangeFeedTest {
+
+    private static final ShipQuery MERCHANT = new ShipQuery(null, null, ShipType.MERCHANT, null, null, null,
+            null, null, null, null, null, null);
+
+    private ShipChangeFeed feed;
+
+    @Before
+    public void setup() {
+        feed = new ShipChangeFeed(4, 1);
+    }
+
+    @After
+    public void tearDown() {
+        feed.destroy();
+    }
+
+    //test1
+    @Test
+    public void subscriberReceivesOnlyMatchingChanges() throws Exception {
+        CollectingSink sink = new CollectingSink(3);
+        feed.subscribe(MERCHANT, sink);
+
+        feed.shipChanged(null, ship(1L, ShipType.MILITARY));
+        feed.shipChanged(null, ship(2L, ShipType.MERCHANT));
+        feed.shipChanged(ship(2L, ShipType.MERCHANT), ship(2L, ShipType.MERCHANT));
+        feed.shipChanged(ship(2L, ShipType.MERCHANT), ship(2L, ShipType.TRANSPORT));
+
+        assertTrue(sink.received.await(5, TimeUnit.SECONDS));
+        assertEquals(ShipChangeEvent.Type.CREATED, sink.events.get(0).getType());
+        assertEquals(ShipChangeEvent.Type.UPDATED, sink.events.get(1).getType());
+        assertEquals("Корабль, переставший подходить под фильтр, должен пропасть у подписчика.",
+                ShipChangeEvent.Type.DELETED, sink.events.get(2).getType());
+        assertEquals(Long.valueOf(2L), sink.events.get(2).getShip().getId());
+    }
+
+    //test2
+    @Test
+    public void slowSubscriberIsDropped() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingSink slow = new CollectingSink(1) {
+            @Override
+            public void send(ShipChangeEvent event) throws IOException {
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(event);
+            }
+        };
+        feed.subscribe(ShipQuery.all(), slow);
+
+        feed.shipChanged(null, ship(1L, ShipType.MERCHANT));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        //Очередь вмещает четыре события, пятое переполняет ее
+        for (long id = 2; id <= 6; id++) {
+            feed.shipChanged(null, ship(id, ShipType.MERCHANT));
+        }
+        release.countDown();
+
+        assertTrue("Медленный подписчик не отключен.", slow.closed);
+        assertFalse(feed.hasSubscribers());
+        assertEquals(1L, feed.getMetrics().get("droppedSubscribers"));
+    }
+
+    //test3
+    @Test
+    public void bulkCreateSendsSingleCountEvent() throws Exception {
+        CollectingSink sink = new CollectingSink(1);
+        feed.subscribe(MERCHANT, sink);
+
+        feed.shipsCreated(Arrays.asList(ship(1L, ShipType.MERCHANT), ship(2L, ShipType.MILITARY),
+                ship(3L, ShipType.MERCHANT)));
+
+        assertTrue(sink.received.await(5, TimeUnit.SECONDS));
+        assertEquals(ShipChangeEvent.Type.CHANGED, sink.events.get(0).getType());
+        assertEquals(Long.valueOf(2L), sink.events.get(0).getCount());
+    }
+
+    private static Ship ship(Long id, ShipType shipType) {
+        Ship ship = new Ship();
+        ship.setId(id);
+        ship.setShipType(shipType);
+        return ship;
+    }
+
+    private static class CollectingSink implements ShipChangeFeed.Sink {
+
+        final List<ShipChangeEvent> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch received;
+        volatile boolean closed;
+
+        CollectingSink(int expected) {
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(ShipChangeEvent event) throws IOException {
+            events.add(event);
+            received.countDown();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ShipColumnIndexTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ShipColumnIndex index;
+    private long catalogVersion; //Каждое изменение - отдельная транзакция со следующей версией каталога
+
+    @Before
+    public void setup() {
+        index = new ShipColumnIndex(null, null, true, 0, 0);
+        List<Ship> ships = new ArrayList<>();
+        for (ShipInfoTest info : testsHelper.getAllShips()) {
+            ships.add(toShip(info));
+        }
+        index.rebuild(ships, catalogVersion);
+    }
+
+    //test1
+    @Test
+    public void findWithoutFiltersReturnAllShips() {
+        ShipColumnIndex.Hits hits = find(null, null, null, null, null, null, ShipOrder.ID, 0, Integer.MAX_VALUE);
+
+        assertArrayEquals("Индекс возвращает не все корабли.", ids(testsHelper.getAllShips()), hits.getIds());
+        assertEquals(testsHelper.getAllShips().size(), hits.getTotal());
+    }
+
+    //test2
+    @Test
+    public void findWithFiltersNameAfterMaxRating() {
+        ShipColumnIndex.Hits hits = find("nt", null, null, 32188140000000L, null, 3., ShipOrder.ID, 0, Integer.MAX_VALUE);
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByMaxRating(3.,
+                testsHelper.getShipInfosByAfter(32188140000000L,
+                        testsHelper.getShipInfosByName("nt", testsHelper.getAllShips())));
+        assertArrayEquals("Индекс возвращает не правильный результат с фильтрами name, after и maxRating.",
+                ids(expected), hits.getIds());
+    }
+
+    //test3
+    @Test
+    public void findWithFilterShipTypeIsUsedOrderSpeedPage() {
+        ShipColumnIndex.Hits hits = find(null, null, ShipType.MERCHANT, null, true, null, ShipOrder.SPEED, 2, 2);
+
+        List<ShipInfoTest> filtered = testsHelper.getShipInfosByIsUsed(true,
+                testsHelper.getShipInfosByShipType(ShipType.MERCHANT, testsHelper.getAllShips()));
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 2,
+                testsHelper.getShipInfosByOrder(ShipOrder.SPEED, filtered));
+        assertArrayEquals("Индекс возвращает не правильную страницу с фильтрами shipType и isUsed, order=SPEED.",
+                ids(expected), hits.getIds());
+        assertEquals(filtered.size(), hits.getTotal());
+    }
+
+    //test4
+    @Test
+    public void putAndRemoveChangeSearchResults() {
+        Ship ship = toShip(testsHelper.getShipInfosById(1L));
+        ship.setName("Левиафан");
+        index.put(ship, ++catalogVersion);
+        index.remove(2L, ++catalogVersion);
+
+        assertArrayEquals(new long[]{1L}, find("ИА", null, null, null, null, null, ShipOrder.ID, 0, 10).getIds());
+        assertEquals(0, find("Daedalus", null, null, null, null, null, ShipOrder.ID, 0, 10).getTotal());
+    }
+
+    //test5
+    @Test
+    public void findBySubstringUsesTrigramsAndChecksWholeTerm() {
+        Ship leviathan = toShip(testsHelper.getShipInfosById(1L));
+        leviathan.setName("Левиафан");
+        index.put(leviathan, ++catalogVersion);
+        Ship tricky = toShip(testsHelper.getShipInfosById(2L));
+        tricky.setName("abcXbcd");
+        index.put(tricky, ++catalogVersion);
+
+        assertArrayEquals(new long[]{1L}, find("ВИАФ", null, null, null, null, null, ShipOrder.ID, 0, 10).getIds());
+        assertArrayEquals(new long[]{1L}, find("иа", null, null, null, null, null, ShipOrder.ID, 0, 10).getIds());
+        assertEquals("Совпадение триграмм без подстроки не должно попадать в результат.",
+                0, find("abcd", null, null, null, null, null, ShipOrder.ID, 0, 10).getTotal());
+
+        leviathan.setName("Daedalus");
+        index.put(leviathan, ++catalogVersion);
+        assertEquals(0, find("виаф", null, null, null, null, null, ShipOrder.ID, 0, 10).getTotal());
+    }
+
+    //test6
+    @Test
+    public void topPagesEqualFullSortPages() {
+        ShipColumnIndex generated = new ShipColumnIndex(null, null, true, 0, 0);
+        generated.rebuild(generateShips(20_000), 0);
+        ShipQuery query = new ShipQuery(null, null, null, null, null, false, null, null, null, null, null, null);
+        for (ShipOrder order : ShipOrder.values()) {
+            long[] all = generated.find(query, order, 0, Integer.MAX_VALUE).getIds();
+            for (int offset : new int[]{0, 3, 500, 4000}) {
+                ShipColumnIndex.Hits page = generated.find(query, order, offset, 25);
+                assertArrayEquals("Страница offset=" + offset + ", order=" + order + " отличается от полной сортировки.",
+                        Arrays.copyOfRange(all, offset, offset + 25), page.getIds());
+                assertEquals(all.length, page.getTotal());
+            }
+        }
+    }
+
+    //test7
+    @Test
+    public void parallelFindEqualsSequentialFind() {
+        List<Ship> ships = generateShips(50_000);
+        ShipColumnIndex sequential = new ShipColumnIndex(null, null, true, 0, 0);
+        ShipColumnIndex parallel = new ShipColumnIndex(null, null, true, 1, 4);
+        sequential.rebuild(ships, 0);
+        parallel.rebuild(ships, 0);
+        try {
+            ShipQuery query = new ShipQuery("1", null, null, null, null, true, null, null, null, null, null, null);
+            for (ShipOrder order : ShipOrder.values()) {
+                ShipColumnIndex.Hits expected = sequential.find(query, order, 0, Integer.MAX_VALUE);
+                ShipColumnIndex.Hits actual = parallel.find(query, order, 0, Integer.MAX_VALUE);
+                assertArrayEquals("Параллельный поиск возвращает другой результат, order=" + order,
+                        expected.getIds(), actual.getIds());
+                assertEquals(expected.getTotal(), actual.getTotal());
+            }
+        } finally {
+            parallel.destroy();
+        }
+    }
+
+    //test8
+    @Test
+    public void findEmptyPageReturnsOnlyTotal() {
+        for (ShipOrder order : ShipOrder.values()) {
+            for (long offset : new long[]{0, 5, 100}) {
+                ShipColumnIndex.Hits hits = find(null, null, null, null, null, null, order, offset, 0);
+                assertEquals(0, hits.getIds().length);
+                assertEquals(testsHelper.getAllShips().size(), hits.getTotal());
+            }
+        }
+    }
+
+    //test9
+    @Test
+    public void removedRowsReusedByNewShips() {
+        int rows = index.rows();
+        for (long id = 1000; id < 1100; id++) {
+            Ship ship = toShip(testsHelper.getShipInfosById(1L));
+            ship.setId(id);
+            ship.setName("Churn " + id);
+            index.put(ship, ++catalogVersion);
+            index.remove(id, ++catalogVersion);
+        }
+        Ship ship = toShip(testsHelper.getShipInfosById(1L));
+        ship.setId(2000L);
+        ship.setName("Phoenix");
+        index.put(ship, ++catalogVersion);
+        index.remove(3L, ++catalogVersion);
+
+        assertEquals("Строки удаленных кораблей не переиспользуются.", rows + 1, index.rows());
+        assertArrayEquals(new long[]{2000L}, find("phoen", null, null, null, null, null, ShipOrder.ID, 0, 10).getIds());
+        assertEquals(0, find("churn", null, null, null, null, null, ShipOrder.ID, 0, 10).getTotal());
+        assertEquals(testsHelper.getAllShips().size(),
+                find(null, null, null, null, null, null, ShipOrder.ID, 0, 0).getTotal());
+    }
+
+    //test10
+    @Test
+    public void changesOfOneTransactionAppliedTogether() {
+        Ship first = toShip(testsHelper.getShipInfosById(1L));
+        first.setName("Левиафан");
+        Ship second = toShip(testsHelper.getShipInfosById(2L));
+        second.setName("Левиафан II");
+        catalogVersion++;
+        index.put(first, catalogVersion);
+        index.put(second, catalogVersion);
+        index.remove(3L, catalogVersion);
+
+        assertArrayEquals(new long[]{1L, 2L}, find("левиафан", null, null, null, null, null, ShipOrder.ID, 0, 10).getIds());
+        assertEquals(testsHelper.getAllShips().size() - 1,
+                find(null, null, null, null, null, null, ShipOrder.ID, 0, 0).getTotal());
+    }
+
+    //test11
+    @Test
+    public void changesAfterMissedTransactionNotApplied() {
+        Ship ship = toShip(testsHelper.getShipInfosById(1L));
+        ship.setName("Левиафан");
+        //Транзакция catalogVersion + 1 другого экземпляра приложения в индекс не попала
+        index.put(ship, catalogVersion + 2);
+        index.remove(2L, catalogVersion + 3);
+
+        assertEquals("Изменение после пропущенной транзакции внесено в индекс.",
+                0, find("левиафан", null, null, null, null, null, ShipOrder.ID, 0, 10).getTotal());
+        assertEquals(testsHelper.getAllShips().size(),
+                find(null, null, null, null, null, null, ShipOrder.ID, 0, 0).getTotal());
+    }
+
+    /**
+     * Корабли со случайными значениями и множеством совпадающих speed, prodDate и rating
+     */
+    private static List<Ship> generateShips(int count) {
+        List<Ship> ships = new ArrayList<>();
+        Random random = new Random(42);
+        ShipType[] types = ShipType.values();
+        for (long id = 1; id <= count; id++) {
+            Ship ship = new Ship();
+            ship.setId(id);
+            ship.setName("Ship " + random.nextInt(1000));
+            ship.setPlanet("Planet " + random.nextInt(100));
+            ship.setShipType(types[random.nextInt(types.length)]);
+            ship.setProdDate(new Date(26192246400000L + random.nextInt(1000) * 31536000000L / 1000));
+            ship.setUsed(random.nextBoolean());
+            ship.setSpeed(random.nextInt(99) / 100. + 0.01);
+            ship.setCrewSize(random.nextInt(9999) + 1);
+            ship.setRating(random.nextInt(5000) / 100.);
+            ships.add(ship);
+        }
+        return ships;
+    }
+
+    private ShipColumnIndex.Hits find(String name, String planet, ShipType shipType, Long after, Boolean isUsed,
+                                      Double maxRating, ShipOrder order, long offset, int limit) {
+        return index.find(new ShipQuery(name, planet, shipType, after, null, isUsed, null, null, null, null, null,
+                maxRating), order, offset, limit);
+    }
+
+    private static long[] ids(List<ShipInfoTest> ships) {
+        return ships.stream().mapToLong(ship -> ship.id).toArray();
+    }
+
+    private static Ship toShip(ShipInfoTest info) {
+        Ship ship = new Ship();
+        ship.setId(info.id);
+        ship.setName(info.name);
+        ship.setPlanet(info.planet);
+        ship.setShipType(info.shipType);
+        ship.setProdDate(new Date(info.prodDate));
+        ship.setUsed(info.isUsed);
+        ship.setSpeed(info.speed);
+        ship.setCrewSize(info.crewSize);
+        ship.setRating(info.rating);
+        return ship;
+    }
+}
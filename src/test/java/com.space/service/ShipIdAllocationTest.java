@@ -0,0 +1,157 @@
+package com.space.service;
+
+import com.space.controller.AbstractTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * id кораблей выделяются блоками по 50 (pooled-lo) и остаются уникальными при создании по одному,
+ * пакетом, параллельно и после сброса данных test.sql
+ */
+public class ShipIdAllocationTest extends AbstractTest {
+
+    private static final int ALLOCATION_SIZE = 50;
+    //Больше двух блоков id
+    private static final int SHIPS = 2 * ALLOCATION_SIZE + 20;
+
+    private TestsHelper testsHelper = new TestsHelper();
+
+    @Autowired
+    private ShipService shipService;
+    @Autowired
+    private ShipRepository shipRepository;
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUpJdbc() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    //test1
+    @Test
+    public void sequentialAndBatchIdsUniqueTest() {
+        long nextVal = nextVal();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < SHIPS; i++) {
+            ids.add(shipService.createShip(newShip("Single " + i)).getId());
+        }
+        long allocated = nextVal() - nextVal;
+        assertTrue("id не выделяются блоками по " + ALLOCATION_SIZE + ": ship_sequence выросла на " + allocated,
+                allocated > 0 && allocated % ALLOCATION_SIZE == 0 && allocated < SHIPS);
+
+        List<Ship> batch = new ArrayList<>();
+        for (int i = 0; i < SHIPS; i++) {
+            batch.add(newShip("Batch " + i));
+        }
+        shipService.createShips(batch);
+        for (Ship ship : batch) {
+            ids.add(ship.getId());
+        }
+
+        assertUnique(ids, 2 * SHIPS);
+    }
+
+    //test2
+    @Test
+    public void concurrentIdsUniqueTest() throws Exception {
+        Collection<Long> ids = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 6; thread++) {
+                String prefix = "Thread " + thread + " ";
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < SHIPS / 2; i++) {
+                        ids.add(shipService.createShip(newShip(prefix + i)).getId());
+                    }
+                }));
+            }
+            for (int thread = 0; thread < 2; thread++) {
+                String prefix = "Batch " + thread + " ";
+                tasks.add(executor.submit(() -> {
+                    List<Ship> batch = new ArrayList<>();
+                    for (int i = 0; i < SHIPS; i++) {
+                        batch.add(newShip(prefix + i));
+                    }
+                    shipService.createShips(batch);
+                    for (Ship ship : batch) {
+                        ids.add(ship.getId());
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertUnique(ids, 6 * (SHIPS / 2) + 2 * SHIPS);
+    }
+
+    //test3
+    @Test
+    public void idsUniqueAfterFixtureResetTest() {
+        //Генератор берет блок id, из которого после сброса данных останутся неиспользованные id
+        shipService.createShip(newShip("Before reset"));
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < SHIPS; i++) {
+            ids.add(shipService.createShip(newShip("After reset " + i)).getId());
+        }
+
+        assertUnique(ids, SHIPS);
+    }
+
+    private void assertUnique(Collection<Long> ids, int expected) {
+        assertEquals(expected, ids.size());
+        assertEquals("id созданных кораблей повторяются.", expected, new HashSet<>(ids).size());
+        for (Long id : ids) {
+            assertTrue("id " + id + " совпадает с id корабля из test.sql.", id > testsHelper.getAllShips().size());
+        }
+        assertEquals(testsHelper.getAllShips().size() + expected, shipRepository.count());
+    }
+
+    private long nextVal() {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM ship_sequence", Long.class);
+    }
+
+    private static Ship newShip(String name) {
+        Ship ship = new Ship();
+        ship.setName(name);
+        ship.setPlanet("Vega");
+        ship.setShipType(ShipType.TRANSPORT);
+        ship.setProdDate(new Date(32188140000000L));
+        ship.setSpeed(0.7);
+        ship.setCrewSize(42);
+        return ship;
+    }
+}
@@ -0,0 +1,141 @@
+package com.space.service;
+
+import com.space.controller.AbstractTest;
+import com.space.controller.ShipOrder;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Два экземпляра приложения с общей БД: shipService из контекста (без индекса и кэша) и local - с индексом
+ * или кэшем запросов. Изменения, сделанные shipService, индекс и кэш local видят по версии каталога
+ */
+public class ShipIndexSyncTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+
+    @Autowired
+    private ShipService shipService;
+    @Autowired
+    private ShipRepository shipRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ShipColumnIndex index;
+    private ShipChangeFeed changeFeed;
+    private ShipService local;
+    private TransactionTemplate readTransaction;
+    private TransactionTemplate writeTransaction;
+
+    @Before
+    public void setUpInstance() {
+        index = new ShipColumnIndex(shipRepository, transactionManager, true, 0, 0);
+        index.afterPropertiesSet();
+        changeFeed = new ShipChangeFeed(16, 1);
+        local = new ShipServiceImpl(shipRepository, index, new ShipQueryCache(false, 0), changeFeed);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @After
+    public void tearDownInstance() {
+        changeFeed.destroy();
+        index.destroy();
+    }
+
+    //test1
+    @Test
+    public void changesOfOtherInstanceVisibleTest() {
+        int all = testsHelper.getAllShips().size();
+        assertEquals(all, (long) read(() -> local.countShips(ShipQuery.all())));
+
+        int earth = testsHelper.getShipInfosByPlanet("Earth", testsHelper.getAllShips()).size();
+        shipService.deleteShips(new ShipQuery(null, "Earth", null, null, null, null,
+                null, null, null, null, null, null));
+        assertEquals("Индекс не увидел удаление другим экземпляром.",
+                all - earth, (long) read(() -> local.countShips(ShipQuery.all())));
+
+        List<ShipInfoTest> military = testsHelper.getShipInfosByShipType(ShipType.MILITARY,
+                testsHelper.getAllShips());
+        military.removeIf(info -> "Earth".equals(info.planet));
+        Ship values = new Ship();
+        values.setSpeed(0.5);
+        shipService.updateShips(new ShipQuery(null, null, ShipType.MILITARY, null, null, null,
+                null, null, null, null, null, null), values);
+        ShipQuery slow = new ShipQuery(null, null, null, null, null, null, 0.5, 0.5, null, null, null, null);
+        assertEquals("Индекс не увидел изменение другим экземпляром.",
+                military.size(), (long) read(() -> local.countShips(slow)));
+    }
+
+    //test2
+    @Test
+    public void ownAndOtherChangesInterleavedTest() {
+        Ship phoenix = write(() -> local.createShip(newShip("Phoenix")));
+        Ship daedalus = shipService.createShip(newShip("Daedalus Prime"));
+        write(() -> local.deleteShip(1L));
+
+        List<Ship> page = read(() -> local.getShips(ShipQuery.all(), ShipOrder.ID, 0, 100));
+        assertEquals(testsHelper.getAllShips().size() + 1, page.size());
+        assertEquals(2L, (long) page.get(0).getId());
+        assertEquals(phoenix.getId(), page.get(page.size() - 2).getId());
+        assertEquals(daedalus.getId(), page.get(page.size() - 1).getId());
+    }
+
+    //test3
+    @Test
+    public void cacheSeesChangesOfOtherInstanceTest() {
+        ShipQueryCache cache = new ShipQueryCache(true, 100);
+        ShipService cached = new ShipServiceImpl(shipRepository, new ShipColumnIndex(), cache, changeFeed);
+        ShipQuery saturn = new ShipQuery(null, "Saturn", null, null, null, null,
+                null, null, null, null, null, null);
+        int all = testsHelper.getAllShips().size();
+        assertEquals(all, (long) read(() -> cached.countShips(ShipQuery.all())));
+        read(() -> cached.searchShips(saturn, ShipOrder.ID, 0, 100));
+
+        shipService.deleteShips(saturn);
+        assertEquals("Кэш вернул количество до изменения другим экземпляром.",
+                all - testsHelper.getShipInfosByPlanet("Saturn", testsHelper.getAllShips()).size(),
+                (long) read(() -> cached.countShips(ShipQuery.all())));
+        assertEquals(0, read(() -> cached.searchShips(saturn, ShipOrder.ID, 0, 100)).getTotalElements());
+
+        //Свои изменения удаляют только затронутые записи
+        long hits = (Long) cache.getMetrics().get("hits");
+        write(() -> cached.createShip(newShip("Phoenix")));
+        read(() -> cached.searchShips(saturn, ShipOrder.ID, 0, 100));
+        assertEquals(hits + 1, cache.getMetrics().get("hits"));
+    }
+
+    private <T> T read(Supplier<T> action) {
+        return readTransaction.execute(status -> action.get());
+    }
+
+    private <T> T write(Supplier<T> action) {
+        return writeTransaction.execute(status -> action.get());
+    }
+
+    private static Ship newShip(String name) {
+        Ship ship = new Ship();
+        ship.setName(name);
+        ship.setPlanet("Vega");
+        ship.setShipType(ShipType.TRANSPORT);
+        ship.setProdDate(new Date(32188140000000L));
+        ship.setSpeed(0.7);
+        ship.setCrewSize(42);
+        return ship;
+    }
+}
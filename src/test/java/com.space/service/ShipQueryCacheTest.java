@@ -0,0 +1,130 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class ShipQueryCacheTest {
+
+    private static final ShipQuery MERCHANT = new ShipQuery(null, null, ShipType.MERCHANT, null, null, null,
+            null, null, null, null, null, null);
+    private static final ShipQuery MILITARY = new ShipQuery(null, null, ShipType.MILITARY, null, null, null,
+            null, null, null, null, null, null);
+
+    private ShipQueryCache cache;
+    private AtomicInteger loads;
+    private long catalogVersion; //Версия каталога, прочитанная вместе с результатом
+
+    @Before
+    public void setup() {
+        cache = new ShipQueryCache(true, 2);
+        loads = new AtomicInteger();
+    }
+
+    //test1
+    @Test
+    public void repeatedQueryIsServedFromCache() {
+        load(MERCHANT, ShipOrder.ID, 0);
+        load(new ShipQuery(null, null, ShipType.MERCHANT, null, null, null, null, null, null, null, null, null),
+                null, 0);
+        load(MERCHANT, ShipOrder.ID, 1);
+
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.getMetrics().get("hits"));
+        assertEquals(2L, cache.getMetrics().get("misses"));
+    }
+
+    //test2
+    @Test
+    public void changeInvalidatesOnlyMatchingQueries() {
+        load(MERCHANT, ShipOrder.ID, 0);
+        load(MILITARY, ShipOrder.ID, 0);
+
+        Ship before = ship(ShipType.MERCHANT);
+        Ship after = ship(ShipType.TRANSPORT);
+        cache.invalidate(before, after, ++catalogVersion);
+        load(MERCHANT, ShipOrder.ID, 0);
+        load(MILITARY, ShipOrder.ID, 0);
+
+        assertEquals("Запрос, под который корабль подходил до изменения, должен быть посчитан заново.",
+                3, loads.get());
+    }
+
+    //test3
+    @Test
+    public void leastRecentlyUsedQueryIsEvicted() {
+        load(MERCHANT, ShipOrder.ID, 0);
+        load(MILITARY, ShipOrder.ID, 0);
+        load(MERCHANT, ShipOrder.ID, 0);
+        load(ShipQuery.all(), ShipOrder.ID, 0);
+        load(MERCHANT, ShipOrder.ID, 0);
+        load(MILITARY, ShipOrder.ID, 0);
+
+        assertEquals(4, loads.get());
+        assertEquals(2L, cache.getMetrics().get("evictions"));
+    }
+
+    //test4
+    @Test
+    public void otherCatalogVersionResetsCache() {
+        load(MERCHANT, ShipOrder.ID, 0);
+        load(MILITARY, ShipOrder.ID, 0);
+        //Каталог изменил другой экземпляр приложения
+        catalogVersion++;
+        load(MILITARY, ShipOrder.ID, 0);
+        //Изменение этого экземпляра после пропущенного чужого
+        cache.invalidate(ship(ShipType.TRANSPORT), null, catalogVersion + 2);
+        catalogVersion += 2;
+        load(MILITARY, ShipOrder.ID, 0);
+
+        assertEquals("Результат другой версии каталога не должен браться из кэша.", 4, loads.get());
+        assertEquals(2L, cache.getMetrics().get("resets"));
+    }
+
+    //test5
+    @Test(expected = UnsupportedOperationException.class)
+    public void cachedListIsUnmodifiableCopy() {
+        Ship ship = ship(ShipType.MERCHANT);
+        List<Ship> loaded = new ArrayList<>(Collections.singletonList(ship));
+        List<Ship> cached = cache.get(ShipQueryCache.Kind.PAGE, MERCHANT, null, 0, 3, catalogVersion, () -> loaded);
+        ship.setShipType(ShipType.MILITARY);
+
+        assertEquals(ShipType.MERCHANT, cached.get(0).getShipType());
+        cached.clear();
+    }
+
+    //test6
+    @Test
+    public void resultLoadedBeforeChangeNotCached() {
+        cache.get(ShipQueryCache.Kind.COUNT, MERCHANT, null, null, null, catalogVersion, () -> {
+            cache.invalidate(null, ship(ShipType.MERCHANT), catalogVersion + 1);
+            return loads.incrementAndGet();
+        });
+        catalogVersion++;
+        cache.get(ShipQueryCache.Kind.COUNT, MERCHANT, null, null, null, catalogVersion, loads::incrementAndGet);
+
+        assertEquals("Результат, посчитанный до изменения, не должен попасть в кэш.", 2, loads.get());
+        assertEquals(0L, cache.getMetrics().get("resets"));
+    }
+
+    private Integer load(ShipQuery query, ShipOrder order, int pageNumber) {
+        return cache.get(ShipQueryCache.Kind.PAGE, query, order, pageNumber, 3, catalogVersion,
+                loads::incrementAndGet);
+    }
+
+    private static Ship ship(ShipType shipType) {
+        Ship ship = new Ship();
+        ship.setId(1L);
+        ship.setShipType(shipType);
+        return ship;
+    }
+}
@@ -0,0 +1,71 @@
+package com.space.service;
+
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShipQueryTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+
+    //test1
+    @Test
+    public void testWithFiltersPlanetShipTypeMinSpeedMaxCrewSize() {
+        ShipQuery query = new ShipQuery(null, "ERC", ShipType.MILITARY, null, null, null,
+                0.3, null, null, 4000, null, null);
+
+        List<Long> actual = testsHelper.getAllShips().stream()
+                .filter(info -> query.test(toShip(info)))
+                .map(info -> info.id)
+                .collect(Collectors.toList());
+        List<Long> expected = testsHelper.getShipInfosByMaxCrewSize(4000,
+                testsHelper.getShipInfosByMinSpeed(0.3,
+                        testsHelper.getShipInfosByShipType(ShipType.MILITARY,
+                                testsHelper.getShipInfosByPlanet("erc", testsHelper.getAllShips()))))
+                .stream().map(info -> info.id).collect(Collectors.toList());
+
+        assertEquals("Предикат ShipQuery возвращает не правильный результат.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void testNameIgnoresCaseForCyrillic() {
+        Ship ship = toShip(testsHelper.getShipInfosById(1L));
+        ship.setName("Левиафан");
+
+        assertTrue(new ShipQuery("ИА", null, null, null, null, null, null, null, null, null, null, null).test(ship));
+        assertFalse(new ShipQuery("ян", null, null, null, null, null, null, null, null, null, null, null).test(ship));
+    }
+
+    //test3
+    @Test
+    public void equalQueriesIgnoreNameCase() {
+        assertEquals(new ShipQuery("Orion", null, null, null, null, true, null, null, null, null, null, null),
+                new ShipQuery("orION", null, null, null, null, true, null, null, null, null, null, null));
+        assertTrue(ShipQuery.all().isEmpty());
+    }
+
+    private static Ship toShip(ShipInfoTest info) {
+        Ship ship = new Ship();
+        ship.setId(info.id);
+        ship.setName(info.name);
+        ship.setPlanet(info.planet);
+        ship.setShipType(info.shipType);
+        ship.setProdDate(new Date(info.prodDate));
+        ship.setUsed(info.isUsed);
+        ship.setSpeed(info.speed);
+        ship.setCrewSize(info.crewSize);
+        ship.setRating(info.rating);
+        return ship;
+    }
+}
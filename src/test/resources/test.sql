@@ -11,9 +11,18 @@ CREATE TABLE ship
     speed    DOUBLE      NULL,
     crewSize INT(4)      NULL,
     rating   DOUBLE      NULL,
+    version  BIGINT      NOT NULL DEFAULT 0,
     PRIMARY KEY (id)
 );
 
+-- Те же индексы, что в db/migration/V2__ship_indexes.sql
+CREATE INDEX ship_speed_id_idx ON ship (speed, id);
+CREATE INDEX ship_prodDate_id_idx ON ship (prodDate, id);
+CREATE INDEX ship_rating_id_idx ON ship (rating, id);
+CREATE INDEX ship_crewSize_idx ON ship (crewSize);
+CREATE INDEX ship_shipType_isUsed_idx ON ship (shipType, isUsed, id);
+CREATE INDEX ship_isUsed_id_idx ON ship (isUsed, id);
+
 INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating)
 VALUES ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)
      , ('Daedalus', 'Jupiter', 'MERCHANT', '3001-01-01', true, 0.94, 1619, 1.98)
@@ -54,4 +63,37 @@ VALUES ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)
      , ('Nemesis', 'Neptune', 'MILITARY', '2999-01-01', true, 0.13, 1390, 0.25)
      , ('Nostromo', 'Saturn', 'MERCHANT', '2991-01-01', true, 0.31, 1967, 0.43)
      , ('Tardis', 'Jupiter', 'MERCHANT', '3016-01-01', false, 0.86, 4871, 17.20)
-     , ('Star Destroyer', 'Mercury', 'MILITARY', '3017-01-01', false, 0.92, 4880, 24.53);
\ No newline at end of file
+     , ('Star Destroyer', 'Mercury', 'MILITARY', '3017-01-01', false, 0.92, 4880, 24.53);
+-- Таблица генератора id, как в db/migration/V3__ship_sequence.sql.
+-- Таблица не пересоздается: генератор раздает из памяти блок id, выделенный в предыдущих тестах,
+-- и следующий блок должен начинаться после него, а не снова после id этих кораблей
+CREATE TABLE IF NOT EXISTS ship_sequence
+(
+    next_val BIGINT NOT NULL
+);
+
+INSERT INTO ship_sequence (next_val)
+SELECT 1
+FROM DUAL
+WHERE NOT EXISTS(SELECT next_val FROM ship_sequence);
+
+UPDATE ship_sequence
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 1 FROM ship));
+-- Версия каталога кораблей, как в db/migration/V5__ship_catalog_version.sql.
+-- Таблица не пересоздается: сброс кораблей - тоже изменение каталога, и версия, как и в рабочей БД,
+-- только растет. Иначе кэш и индекс, помнящие версию из предыдущего теста, приняли бы ее за текущую
+CREATE TABLE IF NOT EXISTS ship_catalog
+(
+    id      INT    NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO ship_catalog (id, version)
+SELECT 1, 0
+FROM DUAL
+WHERE NOT EXISTS(SELECT id FROM ship_catalog WHERE id = 1);
+
+UPDATE ship_catalog
+SET version = version + 1
+WHERE id = 1;